@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.fabric8.kubernetes.client.http.AsyncBody;
+import io.fabric8.kubernetes.client.http.BasicBuilder;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.Interceptor;
+
+/**
+ * Counts the requests made to the API server of a cluster and the bytes of their responses, by verb, to find out what
+ * the provider costs the control plane.
+ * The counts are taken by an {@link Interceptor} of the client, which sees the bodies of plain HTTP responses.
+ * Watches served over a WebSocket (the default) are counted as requests but the events they stream are not counted as
+ * response bytes.
+ */
+final class ApiTraffic {
+
+    /** The name of the interceptor, so that it is replaced rather than added again */
+    static final String INTERCEPTOR = "kubernetes-credentials-provider-traffic";
+
+    /**
+     * The kinds of request made to the API server.
+     */
+    enum Verb {
+        LIST, WATCH, GET, OTHER
+    }
+
+    private final LongAdder[] requests = new LongAdder[Verb.values().length];
+    private final LongAdder[] responseBytes = new LongAdder[Verb.values().length];
+
+    ApiTraffic() {
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new LongAdder();
+            responseBytes[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Classify a request by the verb the API server will see.
+     */
+    static Verb verb(HttpRequest request) {
+        if (!"GET".equals(request.method())) {
+            return Verb.OTHER;
+        }
+        URI uri = request.uri();
+        String query = uri.getRawQuery();
+        if (query != null && (query.startsWith("watch=true") || query.contains("&watch=true"))) {
+            return Verb.WATCH;
+        }
+        String path = uri.getPath();
+        // a collection is listed, a named resource is got
+        return path != null && path.endsWith("/secrets") ? Verb.LIST : Verb.GET;
+    }
+
+    long getRequests(Verb verb) {
+        return requests[verb.ordinal()].sum();
+    }
+
+    long getResponseBytes(Verb verb) {
+        return responseBytes[verb.ordinal()].sum();
+    }
+
+    /**
+     * @return an interceptor counting the traffic of a client.
+     */
+    Interceptor interceptor() {
+        return new Interceptor() {
+            @Override
+            public void before(BasicBuilder builder, HttpRequest request, RequestTags tags) {
+                requests[verb(request).ordinal()].increment();
+            }
+
+            @Override
+            public AsyncBody.Consumer<List<ByteBuffer>> consumer(AsyncBody.Consumer<List<ByteBuffer>> consumer, HttpRequest request) {
+                LongAdder bytes = responseBytes[verb(request).ordinal()];
+                return new AsyncBody.Consumer<List<ByteBuffer>>() {
+                    @Override
+                    public void consume(List<ByteBuffer> value, AsyncBody asyncBody) throws Exception {
+                        long size = 0;
+                        for (ByteBuffer buffer : value) {
+                            size += buffer.remaining();
+                        }
+                        bytes.add(size);
+                        consumer.consume(value, asyncBody);
+                    }
+
+                    @Override
+                    public <U> U unwrap(Class<U> target) {
+                        return consumer.unwrap(target);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Verb verb : Verb.values()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(verb).append('=').append(getRequests(verb)).append(" requests/").append(getResponseBytes(verb)).append(" bytes");
+        }
+        return sb.toString();
+    }
+}
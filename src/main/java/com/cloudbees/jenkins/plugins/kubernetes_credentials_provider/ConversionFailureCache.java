@@ -0,0 +1,175 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import io.fabric8.kubernetes.api.model.Secret;
+
+/**
+ * Remembers the secrets that could not be converted, along with the resourceVersion that failed.
+ * A secret that failed to convert will fail again until it is modified, so relisting or receiving the same secret again
+ * can skip the (repeated) conversion and the log spam that comes with it.
+ * The cache is bounded, evicting the least recently used entries.
+ */
+final class ConversionFailureCache {
+
+    /** The maximum number of failures to remember */
+    static final int MAX_ENTRIES = Integer.getInteger(KubernetesCredentialProvider.class.getName() + ".maxConversionFailures", 1000);
+
+    /** Failures keyed by the namespace qualified secret name, in access order */
+    private final Map<String, Failure> failures = new LinkedHashMap<String, Failure>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Failure> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Check if this version of the secret is already known to fail to convert.
+     * @param namespace the namespace of the secret.
+     * @param name the name of the secret.
+     * @param resourceVersion the resourceVersion of the secret, {@code null} is never a known failure.
+     * @return {@code true} if the same version of the secret previously failed to convert.
+     */
+    synchronized boolean isKnownFailure(String namespace, String name, @CheckForNull String resourceVersion) {
+        if (resourceVersion == null) {
+            return false;
+        }
+        Failure failure = failures.get(KubernetesCredentialProvider.credentialKey(namespace, name));
+        return failure != null && resourceVersion.equals(failure.resourceVersion);
+    }
+
+    /**
+     * @see #isKnownFailure(String, String, String)
+     */
+    boolean isKnownFailure(String namespace, Secret secret) {
+        return isKnownFailure(namespace, secret.getMetadata().getName(), secret.getMetadata().getResourceVersion());
+    }
+
+    /**
+     * Record that the secret failed to convert.
+     * @param namespace the namespace of the secret.
+     * @param secret the secret that could not be converted.
+     * @param type the credentials type of the secret.
+     * @param message the reason the secret could not be converted.
+     */
+    synchronized void record(String namespace, Secret secret, @CheckForNull String type, String message) {
+        String name = secret.getMetadata().getName();
+        failures.put(KubernetesCredentialProvider.credentialKey(namespace, name),
+                new Failure(namespace, name, type, secret.getMetadata().getResourceVersion(), message, System.currentTimeMillis()));
+    }
+
+    /**
+     * Forget about any failure of the secret, as it has been converted or deleted.
+     */
+    synchronized void remove(String namespace, String name) {
+        failures.remove(KubernetesCredentialProvider.credentialKey(namespace, name));
+    }
+
+    /**
+     * Forget about the failures of all the secrets in the namespace.
+     * @param namespace the namespace, or {@link KubernetesCredentialProvider#ANY_NAMESPACE} to forget all failures.
+     */
+    synchronized void removeNamespace(String namespace) {
+        if (KubernetesCredentialProvider.ANY_NAMESPACE.equals(namespace)) {
+            failures.clear();
+        } else {
+            failures.values().removeIf(failure -> failure.namespace.equals(namespace));
+        }
+    }
+
+    /**
+     * @return a snapshot of the current failures, least recently used first.
+     */
+    synchronized List<Failure> getFailures() {
+        return new ArrayList<>(failures.values());
+    }
+
+    synchronized int size() {
+        return failures.size();
+    }
+
+    /**
+     * A secret that could not be converted.
+     */
+    public static final class Failure {
+
+        private final String namespace;
+        private final String name;
+        @CheckForNull
+        private final String type;
+        @CheckForNull
+        private final String resourceVersion;
+        private final String message;
+        private final long timestamp;
+
+        Failure(String namespace, String name, @CheckForNull String type, @CheckForNull String resourceVersion, String message, long timestamp) {
+            this.namespace = namespace;
+            this.name = name;
+            this.type = type;
+            this.resourceVersion = resourceVersion;
+            this.message = message;
+            this.timestamp = timestamp;
+        }
+
+        public String getNamespace() {
+            return namespace;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @CheckForNull
+        public String getType() {
+            return type;
+        }
+
+        @CheckForNull
+        public String getResourceVersion() {
+            return resourceVersion;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return when the failure was recorded, in milliseconds since the epoch.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return namespace + "/" + name + " (" + type + ", resourceVersion " + resourceVersion + "): " + message;
+        }
+    }
+}
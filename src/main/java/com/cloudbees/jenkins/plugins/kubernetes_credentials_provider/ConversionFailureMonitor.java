@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.AdministrativeMonitor;
+
+/**
+ * Lists the secrets that can not be converted to credentials, aggregated by credentials type and by namespace, so that
+ * administrators can fix them rather than finding them in the logs.
+ * The failures are those remembered by the {@link ConversionFailureCache} of each cluster, which is bounded and from
+ * which secrets are removed once they are converted or deleted.
+ */
+@Extension
+public class ConversionFailureMonitor extends AdministrativeMonitor {
+
+    /** The maximum number of secrets listed, the most recent failures first */
+    static final int MAX_LISTED = 50;
+
+    @NonNull
+    @Override
+    public String getDisplayName() {
+        return "Kubernetes Credentials Provider conversion failures";
+    }
+
+    @Override
+    public boolean isActivated() {
+        return !getFailures().isEmpty();
+    }
+
+    /**
+     * @return the provider, or {@code null} if Jenkins is not running.
+     */
+    @CheckForNull
+    KubernetesCredentialProvider getProvider() {
+        return KubernetesCredentialProviderDiagnostics.getProvider();
+    }
+
+    /**
+     * @return the secrets that failed to convert in every cluster, the most recent failures first.
+     */
+    public List<ClusterFailure> getFailures() {
+        KubernetesCredentialProvider provider = getProvider();
+        if (provider == null) {
+            return new ArrayList<>();
+        }
+        List<ClusterFailure> failures = new ArrayList<>();
+        provider.getConversionFailures().forEach((cluster, clusterFailures) -> {
+            for (ConversionFailureCache.Failure failure : clusterFailures) {
+                failures.add(new ClusterFailure(cluster, failure));
+            }
+        });
+        failures.sort(Comparator.comparingLong((ClusterFailure failure) -> failure.getFailure().getTimestamp()).reversed());
+        return failures;
+    }
+
+    /**
+     * @return the {@link #MAX_LISTED most recent} failures.
+     */
+    public List<ClusterFailure> getListedFailures() {
+        List<ClusterFailure> failures = getFailures();
+        return failures.size() > MAX_LISTED ? failures.subList(0, MAX_LISTED) : failures;
+    }
+
+    /**
+     * @return the number of failures of each credentials type.
+     */
+    public Map<String, Integer> getCountsByType() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (ClusterFailure failure : getFailures()) {
+            String type = failure.getFailure().getType();
+            counts.merge(type == null ? "<none>" : type, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * @return the number of failures in each namespace, keyed by {@code cluster/namespace}.
+     */
+    public Map<String, Integer> getCountsByNamespace() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (ClusterFailure failure : getFailures()) {
+            counts.merge(failure.getCluster() + '/' + failure.getFailure().getNamespace(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * A secret of a cluster that failed to convert.
+     */
+    public static final class ClusterFailure {
+
+        private final String cluster;
+        private final ConversionFailureCache.Failure failure;
+
+        ClusterFailure(String cluster, ConversionFailureCache.Failure failure) {
+            this.cluster = cluster;
+            this.failure = failure;
+        }
+
+        public String getCluster() {
+            return cluster;
+        }
+
+        public ConversionFailureCache.Failure getFailure() {
+            return failure;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.model.ItemGroup;
+
+/**
+ * Samples the calls made to {@link KubernetesCredentialProvider#getCredentials(Class, ItemGroup, org.acegisecurity.Authentication)}
+ * to find out who looks up credentials, how often and how expensively.
+ * One call in {@link #SAMPLE_EVERY} is sampled: its latency, result size, requested type, context and calling frame
+ * are recorded. When disabled (the default) the provider does not create a profiler, so lookups are not slowed at all.
+ */
+final class CredentialLookupProfiler {
+
+    /** Sample one lookup in this many, {@code 0} (the default) to disable profiling */
+    static final String SAMPLE_EVERY = KubernetesCredentialProvider.class.getName() + ".profileLookupsEvery";
+
+    /** The maximum number of distinct types, contexts or callers tracked, any more are counted as {@link #OTHER} */
+    static final int MAX_KEYS = 500;
+
+    static final String OTHER = "<other>";
+
+    /** Frames of classes in these packages are not reported as the caller */
+    private static final String[] INTERNAL_PACKAGES = {
+            "com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.",
+            "com.cloudbees.plugins.credentials.",
+            "java.",
+            "jdk.",
+            "sun.",
+    };
+
+    private final int sampleEvery;
+
+    private final LongAdder calls = new LongAdder();
+    private final ConcurrentHashMap<String, TypeStats> byType = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> byItemGroup = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> byCaller = new ConcurrentHashMap<>();
+
+    CredentialLookupProfiler(int sampleEvery) {
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    /**
+     * @return a profiler configured from the system properties, {@code null} if profiling is disabled.
+     */
+    @CheckForNull
+    static CredentialLookupProfiler fromSystemProperties() {
+        int sampleEvery = Integer.getInteger(SAMPLE_EVERY, 0);
+        return sampleEvery > 0 ? new CredentialLookupProfiler(sampleEvery) : null;
+    }
+
+    /**
+     * Count a lookup and decide if it should be sampled.
+     * @return {@code true} if the lookup should be {@link #record recorded}.
+     */
+    boolean sample() {
+        calls.increment();
+        return sampleEvery == 1 || ThreadLocalRandom.current().nextInt(sampleEvery) == 0;
+    }
+
+    /**
+     * Record a sampled lookup, called by the thread that made the lookup so its caller can be found.
+     */
+    void record(Class<?> type, @CheckForNull ItemGroup<?> itemGroup, int resultSize, long durationNanos) {
+        TypeStats stats = stats(byType, type.getName(), TypeStats::new);
+        stats.latency.record(durationNanos);
+        stats.results.add(resultSize);
+        stats(byItemGroup, itemGroup == null ? "<null>" : itemGroup.getFullName(), LongAdder::new).increment();
+        stats(byCaller, findCaller(), LongAdder::new).increment();
+    }
+
+    private static <V> V stats(ConcurrentHashMap<String, V> map, String key, Supplier<V> factory) {
+        V value = map.get(key);
+        if (value == null) {
+            // bound the memory used by callers with an unbounded number of distinct keys
+            value = map.computeIfAbsent(map.size() < MAX_KEYS ? key : OTHER, k -> factory.get());
+        }
+        return value;
+    }
+
+    private static String findCaller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> !isInternal(frame.getClassName()))
+                .findFirst()
+                .map(frame -> frame.getClassName() + '.' + frame.getMethodName())
+                .orElse("<unknown>"));
+    }
+
+    private static boolean isInternal(String className) {
+        for (String internal : INTERNAL_PACKAGES) {
+            if (className.startsWith(internal)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the total number of lookups, sampled or not.
+     */
+    long getCallCount() {
+        return calls.sum();
+    }
+
+    /**
+     * @return the number of sampled lookups, keyed by requested credentials class.
+     */
+    Map<String, Long> getSampledCountsByType() {
+        Map<String, Long> counts = new TreeMap<>();
+        byType.forEach((type, stats) -> counts.put(type, stats.latency.getCount()));
+        return counts;
+    }
+
+    /**
+     * @return the average number of credentials returned by the sampled lookups, keyed by requested credentials class.
+     */
+    Map<String, Double> getAverageResultSizesByType() {
+        Map<String, Double> sizes = new TreeMap<>();
+        byType.forEach((type, stats) -> {
+            long count = stats.latency.getCount();
+            sizes.put(type, count == 0 ? 0 : (double) stats.results.sum() / count);
+        });
+        return sizes;
+    }
+
+    /**
+     * @param percentile the percentile, between {@code 0} and {@code 100}.
+     * @return the estimated latency percentile of the sampled lookups in nanoseconds, keyed by requested credentials class.
+     */
+    Map<String, Long> getLatencyNanosByType(double percentile) {
+        Map<String, Long> latencies = new TreeMap<>();
+        byType.forEach((type, stats) -> latencies.put(type, stats.latency.getPercentileNanos(percentile)));
+        return latencies;
+    }
+
+    /**
+     * @return the number of sampled lookups, keyed by the full name of the context.
+     */
+    Map<String, Long> getSampledCountsByItemGroup() {
+        return sums(byItemGroup);
+    }
+
+    /**
+     * @return the number of sampled lookups, keyed by the first calling method outside of the credentials plugins.
+     */
+    Map<String, Long> getSampledCountsByCaller() {
+        return sums(byCaller);
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> adders) {
+        Map<String, Long> counts = new TreeMap<>();
+        adders.forEach((key, adder) -> counts.put(key, adder.sum()));
+        return counts;
+    }
+
+    private static final class TypeStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder results = new LongAdder();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.cloudbees.plugins.credentials.common.IdCredentials;
+import com.cloudbees.plugins.credentials.common.StandardCredentials;
+import io.fabric8.kubernetes.api.model.Secret;
+
+/**
+ * Estimates the heap retained by the credentials converted from secrets, and enforces limits on the size of secrets.
+ * The estimates are deliberately simple: the decoded data of a secret is counted twice, as credentials hold on to both
+ * the plain text and the encrypted form of their secrets (see {@link hudson.util.Secret} and
+ * {@link com.cloudbees.plugins.credentials.SecretBytes}), plus a fixed overhead for the credential object itself.
+ * An instance holds the size limits, read once from the system properties.
+ */
+final class CredentialSizes {
+
+    private static final Logger LOG = Logger.getLogger(CredentialSizes.class.getName());
+
+    /** Secrets whose decoded data is larger than this many bytes are logged, {@code 0} to never log them */
+    static final String WARN_BYTES = KubernetesCredentialProvider.class.getName() + ".secretSizeWarnBytes";
+
+    /** Secrets whose decoded data is larger than this many bytes are not converted, {@code 0} (the default) for no limit */
+    static final String LIMIT_BYTES = KubernetesCredentialProvider.class.getName() + ".secretSizeLimitBytes";
+
+    /** The estimated size of a credential object, its fields and the wrapping {@link KubernetesSourcedCredential} */
+    static final long CREDENTIAL_OVERHEAD = 256;
+
+    /** The maximum number of secrets to remember having warned about */
+    static final int MAX_WARNED = 1000;
+
+    private final long limitBytes;
+    private final long warnBytes;
+
+    /** The resourceVersion last warned about keyed by secret UID, in access order, so each version is only logged once */
+    private final Map<String, String> warned = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_WARNED;
+        }
+    };
+
+    CredentialSizes(long limitBytes, long warnBytes) {
+        this.limitBytes = limitBytes;
+        this.warnBytes = warnBytes;
+    }
+
+    static CredentialSizes fromSystemProperties() {
+        return new CredentialSizes(Long.getLong(LIMIT_BYTES, 0), Long.getLong(WARN_BYTES, 256 * 1024));
+    }
+
+    /**
+     * Estimate the size of the data of a secret once decoded.
+     */
+    static long dataSize(Secret s) {
+        long size = 0;
+        Map<String, String> data = s.getData();
+        if (data != null) {
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                String value = entry.getValue();
+                size += entry.getKey().length() + (value == null ? 0 : value.length() * 3L / 4);
+            }
+        }
+        Map<String, String> stringData = s.getStringData();
+        if (stringData != null) {
+            for (Map.Entry<String, String> entry : stringData.entrySet()) {
+                String value = entry.getValue();
+                size += entry.getKey().length() + (value == null ? 0 : value.length());
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Estimate the heap retained by the credential converted from a secret.
+     * @param s the secret the credential was converted from.
+     * @param credential the converted credential.
+     * @return the estimated size in bytes.
+     */
+    static long retainedSize(Secret s, IdCredentials credential) {
+        long size = CREDENTIAL_OVERHEAD + 2 * dataSize(s) + credential.getId().length();
+        if (credential instanceof StandardCredentials) {
+            String description = ((StandardCredentials) credential).getDescription();
+            size += description == null ? 0 : description.length();
+        }
+        return size;
+    }
+
+    /**
+     * Check the size of a secret before it is converted.
+     * A secret larger than {@link #WARN_BYTES} is logged as a warning once per version, and at {@code FINE} when the
+     * same version is converted again (on a relist for example).
+     * @throws CredentialsConvertionException if the secret is larger than {@link #LIMIT_BYTES}.
+     */
+    void check(Secret s) throws CredentialsConvertionException {
+        if (limitBytes <= 0 && warnBytes <= 0) {
+            return;
+        }
+        long size = dataSize(s);
+        if (limitBytes > 0 && size > limitBytes) {
+            throw new CredentialsConvertionException("secret data of " + size + " bytes exceeds the limit of " + limitBytes + " bytes");
+        }
+        if (warnBytes > 0 && size > warnBytes) {
+            LOG.log(isFirstWarning(s) ? Level.WARNING : Level.FINE, "Secret {0} holds {1} bytes of data, which will be retained in memory by its credential",
+                    new Object[] {SecretUtils.getCredentialId(s), size});
+        }
+    }
+
+    /**
+     * @return {@code true} if this version of the secret has not been warned about yet.
+     */
+    private boolean isFirstWarning(Secret s) {
+        String uid = s.getMetadata().getUid();
+        if (uid == null) {
+            // cannot tell the secrets apart, so keep warning
+            return true;
+        }
+        String resourceVersion = s.getMetadata().getResourceVersion();
+        synchronized (warned) {
+            return !Objects.equals(warned.put(uid, String.valueOf(resourceVersion)), String.valueOf(resourceVersion));
+        }
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import io.fabric8.kubernetes.client.Watcher;
+
+/**
+ * Keeps the metrics of the {@link KubernetesCredentialProvider} in memory, for reading from the JVM (or a script console).
+ * Disabled unless the {@link #METRICS} system property is {@code true}.
+ */
+@Extension
+public class InMemoryProviderMetrics extends KubernetesCredentialProviderMetrics {
+
+    /** Keep the metrics of the provider in memory */
+    static final String METRICS = KubernetesCredentialProvider.class.getName() + ".metrics";
+
+    private final Map<Watcher.Action, LongAdder> events = new EnumMap<>(Watcher.Action.class);
+    private final LongAdder watchReconnects = new LongAdder();
+    private final ConcurrentHashMap<String, TypeMetrics> types = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> failuresByNamespace = new ConcurrentHashMap<>();
+    /** The time of the last full sync, keyed by cluster and namespace */
+    private final ConcurrentHashMap<String, Long> lastSync = new ConcurrentHashMap<>();
+    private final LatencyHistogram propagationLag = new LatencyHistogram();
+    private final LongAdder throttledNanos = new LongAdder();
+    private final LongAdder throttledCount = new LongAdder();
+    private final LongAdder circuitOpened = new LongAdder();
+
+    public InMemoryProviderMetrics() {
+        for (Watcher.Action action : Watcher.Action.values()) {
+            events.put(action, new LongAdder());
+        }
+    }
+
+    /**
+     * @return the metrics, or {@code null} if Jenkins is not running.
+     */
+    @CheckForNull
+    static InMemoryProviderMetrics get() {
+        return ExtensionList.lookup(KubernetesCredentialProviderMetrics.class).get(InMemoryProviderMetrics.class);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return Boolean.getBoolean(METRICS);
+    }
+
+    @Override
+    public void onWatchEvent(String cluster, String namespace, Watcher.Action action) {
+        events.get(action).increment();
+    }
+
+    @Override
+    public void onWatchReconnect(String cluster, String namespace) {
+        watchReconnects.increment();
+    }
+
+    @Override
+    public void onConversion(String type, int count, long durationNanos) {
+        TypeMetrics metrics = typeMetrics(type);
+        metrics.conversions.add(count);
+        // the duration is that of the whole batch, so each of its secrets is recorded with the average conversion time
+        metrics.latency.record(count == 0 ? durationNanos : durationNanos / count, count);
+    }
+
+    @Override
+    public void onConversionFailure(String type, String namespace) {
+        typeMetrics(type).failures.increment();
+        failuresByNamespace.computeIfAbsent(namespace, k -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void onSync(String cluster, String namespace, int credentials) {
+        lastSync.put(cluster + '/' + namespace, System.currentTimeMillis());
+    }
+
+    @Override
+    public void onPropagationLag(String cluster, String namespace, String type, long lagMillis) {
+        propagationLag.record(TimeUnit.MILLISECONDS.toNanos(lagMillis));
+    }
+
+    @Override
+    public void onListThrottled(String cluster, long durationNanos) {
+        throttledNanos.add(durationNanos);
+        throttledCount.increment();
+    }
+
+    @Override
+    public void onListCircuitOpened(String cluster) {
+        circuitOpened.increment();
+    }
+
+    private TypeMetrics typeMetrics(String type) {
+        return types.computeIfAbsent(type == null ? "" : type, k -> new TypeMetrics());
+    }
+
+    /**
+     * @return the number of watch events received of the action.
+     */
+    public long getEventCount(Watcher.Action action) {
+        return events.get(action).sum();
+    }
+
+    public long getWatchReconnectCount() {
+        return watchReconnects.sum();
+    }
+
+    /**
+     * @return the number of secrets whose conversion was attempted, keyed by credentials type.
+     */
+    public Map<String, Long> getConversionCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        types.forEach((type, metrics) -> counts.put(type, metrics.conversions.sum()));
+        return counts;
+    }
+
+    /**
+     * @return the number of conversion failures, keyed by credentials type.
+     */
+    public Map<String, Long> getConversionFailureCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        types.forEach((type, metrics) -> counts.put(type, metrics.failures.sum()));
+        return counts;
+    }
+
+    /**
+     * @return the number of conversion failures, keyed by namespace.
+     */
+    public Map<String, Long> getConversionFailureCountsByNamespace() {
+        Map<String, Long> counts = new TreeMap<>();
+        failuresByNamespace.forEach((namespace, count) -> counts.put(namespace, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Estimate a percentile of the time to convert a secret of a type.
+     * @param type the credentials type.
+     * @param percentile the percentile, between {@code 0} and {@code 100}.
+     * @return the estimated time in nanoseconds, {@code 0} if no secret of the type has been converted.
+     */
+    public long getConversionLatencyNanos(String type, double percentile) {
+        TypeMetrics metrics = types.get(type);
+        return metrics == null ? 0 : metrics.latency.getPercentileNanos(percentile);
+    }
+
+    /**
+     * @return the time of the last full sync of each namespace, keyed by {@code cluster/namespace}.
+     */
+    public Map<String, Long> getLastSyncTimes() {
+        return Collections.unmodifiableMap(new TreeMap<>(lastSync));
+    }
+
+    /**
+     * @return the number of credentials currently obtained from Kubernetes.
+     */
+    public int getCredentialCount() {
+        KubernetesCredentialProvider provider = ExtensionList.lookup(KubernetesCredentialProvider.class).get(KubernetesCredentialProvider.class);
+        return provider == null ? 0 : provider.getCredentialCount();
+    }
+
+    /**
+     * @return the number of credential lookups made, {@code 0} unless lookup profiling is enabled.
+     */
+    public long getLookupCount() {
+        CredentialLookupProfiler profiler = getLookupProfiler();
+        return profiler == null ? 0 : profiler.getCallCount();
+    }
+
+    /**
+     * @return the number of sampled credential lookups, keyed by requested credentials class.
+     */
+    public Map<String, Long> getSampledLookupCountsByType() {
+        CredentialLookupProfiler profiler = getLookupProfiler();
+        return profiler == null ? Collections.emptyMap() : profiler.getSampledCountsByType();
+    }
+
+    /**
+     * @return the average number of credentials returned by the sampled lookups, keyed by requested credentials class.
+     */
+    public Map<String, Double> getAverageLookupResultSizes() {
+        CredentialLookupProfiler profiler = getLookupProfiler();
+        return profiler == null ? Collections.emptyMap() : profiler.getAverageResultSizesByType();
+    }
+
+    /**
+     * @param percentile the percentile, between {@code 0} and {@code 100}.
+     * @return the estimated latency percentile of the sampled lookups in nanoseconds, keyed by requested credentials class.
+     */
+    public Map<String, Long> getLookupLatencyNanos(double percentile) {
+        CredentialLookupProfiler profiler = getLookupProfiler();
+        return profiler == null ? Collections.emptyMap() : profiler.getLatencyNanosByType(percentile);
+    }
+
+    /**
+     * @return the number of sampled credential lookups, keyed by the full name of the context.
+     */
+    public Map<String, Long> getSampledLookupCountsByContext() {
+        CredentialLookupProfiler profiler = getLookupProfiler();
+        return profiler == null ? Collections.emptyMap() : profiler.getSampledCountsByItemGroup();
+    }
+
+    /**
+     * @return the number of sampled credential lookups, keyed by the first calling method outside of the credentials plugins.
+     */
+    public Map<String, Long> getSampledLookupCountsByCaller() {
+        CredentialLookupProfiler profiler = getLookupProfiler();
+        return profiler == null ? Collections.emptyMap() : profiler.getSampledCountsByCaller();
+    }
+
+    @CheckForNull
+    private static CredentialLookupProfiler getLookupProfiler() {
+        KubernetesCredentialProvider provider = ExtensionList.lookup(KubernetesCredentialProvider.class).get(KubernetesCredentialProvider.class);
+        return provider == null ? null : provider.getLookupProfiler();
+    }
+
+    /**
+     * @param percentile the percentile, between {@code 0} and {@code 100}.
+     * @return the estimated percentile of the time secret updates took to become visible, in milliseconds.
+     */
+    public long getPropagationLagMillis(double percentile) {
+        return TimeUnit.NANOSECONDS.toMillis(propagationLag.getPercentileNanos(percentile));
+    }
+
+    public long getListThrottledMillis() {
+        return throttledNanos.sum() / 1_000_000;
+    }
+
+    public long getListThrottledCount() {
+        return throttledCount.sum();
+    }
+
+    public long getListCircuitOpenedCount() {
+        return circuitOpened.sum();
+    }
+
+    private static final class TypeMetrics {
+        private final LongAdder conversions = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.Objects;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import io.fabric8.kubernetes.client.Config;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Tuning of the transport of the Kubernetes clients used to list and watch secrets.
+ * Each setting that is not configured falls back to the system property of the same name prefixed with
+ * {@code com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.KubernetesCredentialProvider.}, and then to the
+ * default of the client.
+ */
+public class KubernetesClientSettings extends AbstractDescribableImpl<KubernetesClientSettings> {
+
+    static final String REQUEST_TIMEOUT = KubernetesCredentialProvider.class.getName() + ".requestTimeout";
+    static final String CONNECTION_TIMEOUT = KubernetesCredentialProvider.class.getName() + ".connectionTimeout";
+    static final String WATCH_RECONNECT_INTERVAL = KubernetesCredentialProvider.class.getName() + ".watchReconnectInterval";
+    static final String WATCH_RECONNECT_LIMIT = KubernetesCredentialProvider.class.getName() + ".watchReconnectLimit";
+    static final String MAX_CONCURRENT_REQUESTS = KubernetesCredentialProvider.class.getName() + ".maxConcurrentRequests";
+    static final String MAX_CONCURRENT_REQUESTS_PER_HOST = KubernetesCredentialProvider.class.getName() + ".maxConcurrentRequestsPerHost";
+    static final String HTTP2_DISABLE = KubernetesCredentialProvider.class.getName() + ".http2Disable";
+
+    /** The form value of the option of a tri-state setting that is not configured */
+    static final String DEFAULT = "";
+
+    /** Timeout in milliseconds of a request, which for a LIST includes reading the whole response */
+    @CheckForNull
+    private Integer requestTimeout;
+
+    /** Timeout in milliseconds to establish a connection to the API server */
+    @CheckForNull
+    private Integer connectionTimeout;
+
+    /** Interval in milliseconds between attempts to reconnect a watch */
+    @CheckForNull
+    private Integer watchReconnectInterval;
+
+    /** Number of attempts to reconnect a watch before it is closed with an error, {@code -1} for no limit */
+    @CheckForNull
+    private Integer watchReconnectLimit;
+
+    /** Maximum number of concurrent requests, which is the size of the connection pool of the client */
+    @CheckForNull
+    private Integer maxConcurrentRequests;
+
+    /** Maximum number of concurrent requests to a single API server */
+    @CheckForNull
+    private Integer maxConcurrentRequestsPerHost;
+
+    /** Disable HTTP/2, so each watch uses its own connection rather than a stream of a shared connection */
+    @CheckForNull
+    private Boolean http2Disable;
+
+    @DataBoundConstructor
+    public KubernetesClientSettings() {
+    }
+
+    @CheckForNull
+    public Integer getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    @DataBoundSetter
+    public void setRequestTimeout(@CheckForNull Integer requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    @CheckForNull
+    public Integer getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    @DataBoundSetter
+    public void setConnectionTimeout(@CheckForNull Integer connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    @CheckForNull
+    public Integer getWatchReconnectInterval() {
+        return watchReconnectInterval;
+    }
+
+    @DataBoundSetter
+    public void setWatchReconnectInterval(@CheckForNull Integer watchReconnectInterval) {
+        this.watchReconnectInterval = watchReconnectInterval;
+    }
+
+    @CheckForNull
+    public Integer getWatchReconnectLimit() {
+        return watchReconnectLimit;
+    }
+
+    @DataBoundSetter
+    public void setWatchReconnectLimit(@CheckForNull Integer watchReconnectLimit) {
+        this.watchReconnectLimit = watchReconnectLimit;
+    }
+
+    @CheckForNull
+    public Integer getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentRequests(@CheckForNull Integer maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    @CheckForNull
+    public Integer getMaxConcurrentRequestsPerHost() {
+        return maxConcurrentRequestsPerHost;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentRequestsPerHost(@CheckForNull Integer maxConcurrentRequestsPerHost) {
+        this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+    }
+
+    @CheckForNull
+    public Boolean getHttp2Disable() {
+        return http2Disable;
+    }
+
+    @DataBoundSetter
+    public void setHttp2Disable(@CheckForNull Boolean http2Disable) {
+        this.http2Disable = http2Disable;
+    }
+
+    /**
+     * Apply the settings, and the system properties of the settings that are not configured, to a client configuration.
+     * @param settings the configured settings, {@code null} to apply only the system properties.
+     * @param config the client configuration to update.
+     * @return {@code config}.
+     */
+    @NonNull
+    static Config apply(@CheckForNull KubernetesClientSettings settings, @NonNull Config config) {
+        KubernetesClientSettings s = settings == null ? new KubernetesClientSettings() : settings;
+        Integer value = valueOf(s.requestTimeout, REQUEST_TIMEOUT);
+        if (value != null) {
+            config.setRequestTimeout(value);
+        }
+        value = valueOf(s.connectionTimeout, CONNECTION_TIMEOUT);
+        if (value != null) {
+            config.setConnectionTimeout(value);
+        }
+        value = valueOf(s.watchReconnectInterval, WATCH_RECONNECT_INTERVAL);
+        if (value != null) {
+            config.setWatchReconnectInterval(value);
+        }
+        value = valueOf(s.watchReconnectLimit, WATCH_RECONNECT_LIMIT);
+        if (value != null) {
+            config.setWatchReconnectLimit(value);
+        }
+        value = valueOf(s.maxConcurrentRequests, MAX_CONCURRENT_REQUESTS);
+        if (value != null) {
+            config.setMaxConcurrentRequests(value);
+        }
+        value = valueOf(s.maxConcurrentRequestsPerHost, MAX_CONCURRENT_REQUESTS_PER_HOST);
+        if (value != null) {
+            config.setMaxConcurrentRequestsPerHost(value);
+        }
+        if (s.http2Disable != null) {
+            config.setHttp2Disable(s.http2Disable);
+        } else if (System.getProperty(HTTP2_DISABLE) != null) {
+            config.setHttp2Disable(Boolean.getBoolean(HTTP2_DISABLE));
+        }
+        return config;
+    }
+
+    @CheckForNull
+    private static Integer valueOf(@CheckForNull Integer configured, String property) {
+        return configured != null ? configured : Integer.getInteger(property);
+    }
+
+    /**
+     * Remove the tri-state settings left at {@link #DEFAULT} from submitted form data, so that they stay {@code null}.
+     * Stapler would otherwise bind the empty value of the option to {@code false}.
+     * @param formData the submitted settings.
+     */
+    static void removeDefaults(@NonNull JSONObject formData) {
+        if (DEFAULT.equals(formData.opt("http2Disable"))) {
+            formData.remove("http2Disable");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KubernetesClientSettings that = (KubernetesClientSettings) o;
+        return Objects.equals(requestTimeout, that.requestTimeout)
+                && Objects.equals(connectionTimeout, that.connectionTimeout)
+                && Objects.equals(watchReconnectInterval, that.watchReconnectInterval)
+                && Objects.equals(watchReconnectLimit, that.watchReconnectLimit)
+                && Objects.equals(maxConcurrentRequests, that.maxConcurrentRequests)
+                && Objects.equals(maxConcurrentRequestsPerHost, that.maxConcurrentRequestsPerHost)
+                && Objects.equals(http2Disable, that.http2Disable);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(requestTimeout, connectionTimeout, watchReconnectInterval, watchReconnectLimit,
+                maxConcurrentRequests, maxConcurrentRequestsPerHost, http2Disable);
+    }
+
+    @Extension
+    @Symbol("clientSettings")
+    public static class DescriptorImpl extends Descriptor<KubernetesClientSettings> {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Kubernetes client settings";
+        }
+
+        public FormValidation doCheckRequestTimeout(@QueryParameter String value) {
+            return Util.fixEmptyAndTrim(value) == null ? FormValidation.ok() : FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public FormValidation doCheckConnectionTimeout(@QueryParameter String value) {
+            return Util.fixEmptyAndTrim(value) == null ? FormValidation.ok() : FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public FormValidation doCheckWatchReconnectInterval(@QueryParameter String value) {
+            return Util.fixEmptyAndTrim(value) == null ? FormValidation.ok() : FormValidation.validateNonNegativeInteger(value);
+        }
+
+        public FormValidation doCheckMaxConcurrentRequests(@QueryParameter String value) {
+            return Util.fixEmptyAndTrim(value) == null ? FormValidation.ok() : FormValidation.validatePositiveInteger(value);
+        }
+
+        public FormValidation doCheckMaxConcurrentRequestsPerHost(@QueryParameter String value) {
+            return Util.fixEmptyAndTrim(value) == null ? FormValidation.ok() : FormValidation.validatePositiveInteger(value);
+        }
+
+        public ListBoxModel doFillHttp2DisableItems() {
+            ListBoxModel items = new ListBoxModel();
+            // not configured, which falls back to the system property and then to the client default
+            items.add("Default", DEFAULT);
+            items.add("Yes", "true");
+            items.add("No", "false");
+            return items;
+        }
+    }
+}
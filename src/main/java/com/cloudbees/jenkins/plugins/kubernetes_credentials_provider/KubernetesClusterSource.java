@@ -0,0 +1,227 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.util.FormValidation;
+import hudson.util.Secret;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.http.Interceptor;
+import jenkins.util.SetContextClassLoader;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * An additional Kubernetes cluster to obtain credentials from, as well as the cluster Jenkins is running in.
+ * The cluster is connected to using a kubeconfig, given either inline or as the path to a file on the controller.
+ */
+public class KubernetesClusterSource extends AbstractDescribableImpl<KubernetesClusterSource> {
+
+    /** Unique name of the cluster, used in logs and to order the precedence of credentials */
+    @NonNull
+    private final String name;
+
+    /** The contents of the kubeconfig */
+    @CheckForNull
+    private Secret kubeconfig;
+
+    /** The path to the kubeconfig file on the controller, used if {@link #kubeconfig} is not set */
+    @CheckForNull
+    private String kubeconfigPath;
+
+    /** The context of the kubeconfig to use, {@code null} for the current context */
+    @CheckForNull
+    private String context;
+
+    /** Comma separated list of namespaces to watch, {@code null} for the namespace of the context */
+    @CheckForNull
+    private String namespaces;
+
+    /** Use a single cluster scoped watch filtered by {@link #namespaces} rather than a watch per namespace */
+    private boolean clusterScoped;
+
+    @DataBoundConstructor
+    public KubernetesClusterSource(@NonNull String name) {
+        this.name = name.trim();
+    }
+
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @CheckForNull
+    public Secret getKubeconfig() {
+        return kubeconfig;
+    }
+
+    @DataBoundSetter
+    public void setKubeconfig(@CheckForNull Secret kubeconfig) {
+        this.kubeconfig = kubeconfig == null || kubeconfig.getPlainText().isEmpty() ? null : kubeconfig;
+    }
+
+    @CheckForNull
+    public String getKubeconfigPath() {
+        return kubeconfigPath;
+    }
+
+    @DataBoundSetter
+    public void setKubeconfigPath(@CheckForNull String kubeconfigPath) {
+        this.kubeconfigPath = Util.fixEmptyAndTrim(kubeconfigPath);
+    }
+
+    @CheckForNull
+    public String getContext() {
+        return context;
+    }
+
+    @DataBoundSetter
+    public void setContext(@CheckForNull String context) {
+        this.context = Util.fixEmptyAndTrim(context);
+    }
+
+    @CheckForNull
+    public String getNamespaces() {
+        return namespaces;
+    }
+
+    @DataBoundSetter
+    public void setNamespaces(@CheckForNull String namespaces) {
+        this.namespaces = Util.fixEmptyAndTrim(namespaces);
+    }
+
+    public boolean isClusterScoped() {
+        return clusterScoped;
+    }
+
+    @DataBoundSetter
+    public void setClusterScoped(boolean clusterScoped) {
+        this.clusterScoped = clusterScoped;
+    }
+
+    /**
+     * @return the configured namespaces, empty if none have been configured.
+     */
+    @NonNull
+    List<String> getNamespaceList() {
+        return KubernetesCredentialProviderConfiguration.parseNamespaces(namespaces);
+    }
+
+    /**
+     * Create a client for the cluster.
+     * @param interceptorName the name of the interceptor.
+     * @param interceptor an interceptor added to the HTTP client of the client.
+     * @return a new client, which the caller is responsible for closing.
+     * @throws KubernetesClientException if the kubeconfig could not be read or parsed.
+     */
+    @NonNull
+    KubernetesClient createClient(String interceptorName, Interceptor interceptor) {
+        String contents;
+        if (kubeconfig != null) {
+            contents = kubeconfig.getPlainText();
+        } else if (kubeconfigPath != null) {
+            try {
+                contents = new String(Files.readAllBytes(Paths.get(kubeconfigPath)), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new KubernetesClientException("Failed to read kubeconfig " + kubeconfigPath + " of cluster " + name, e);
+            }
+        } else {
+            throw new KubernetesClientException("No kubeconfig has been configured for cluster " + name);
+        }
+        Config config = KubernetesClientSettings.apply(KubernetesCredentialProvider.getClientSettings(),
+                Config.fromKubeconfig(context, contents, kubeconfigPath));
+        try (SetContextClassLoader ignored = new SetContextClassLoader(KubernetesClusterSource.class)) {
+            return new KubernetesClientBuilder().withConfig(config)
+                    .withHttpClientBuilderConsumer(builder -> builder.addOrReplaceInterceptor(interceptorName, interceptor))
+                    .build();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KubernetesClusterSource that = (KubernetesClusterSource) o;
+        return clusterScoped == that.clusterScoped
+                && name.equals(that.name)
+                && Objects.equals(kubeconfig, that.kubeconfig)
+                && Objects.equals(kubeconfigPath, that.kubeconfigPath)
+                && Objects.equals(context, that.context)
+                && Objects.equals(namespaces, that.namespaces);
+    }
+
+    @Override
+    public int hashCode() {
+        // the kubeconfig is deliberately left out: the hash of a Secret is that of its plain text, and leaving out a field
+        // compared by equals only makes sources that differ by their kubeconfig alone share a hash
+        return Objects.hash(name, kubeconfigPath, context, namespaces, clusterScoped);
+    }
+
+    @Override
+    public String toString() {
+        return "KubernetesClusterSource[" + name + "]";
+    }
+
+    @Extension
+    @Symbol("cluster")
+    public static class DescriptorImpl extends Descriptor<KubernetesClusterSource> {
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return "Kubernetes cluster";
+        }
+
+        public FormValidation doCheckName(@QueryParameter String value) {
+            if (Util.fixEmptyAndTrim(value) == null) {
+                return FormValidation.error("A name is required");
+            }
+            if (KubernetesCredentialProvider.LOCAL_CLUSTER.equals(value.trim())) {
+                return FormValidation.error("The name " + KubernetesCredentialProvider.LOCAL_CLUSTER + " is reserved for the cluster Jenkins is running in");
+            }
+            return FormValidation.ok();
+        }
+    }
+}
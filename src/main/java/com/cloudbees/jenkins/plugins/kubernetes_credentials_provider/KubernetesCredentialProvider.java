@@ -25,9 +25,11 @@ package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
 
 import io.fabric8.kubernetes.client.KubernetesClientBuilder;
 import io.fabric8.kubernetes.client.WatcherException;
+import java.net.HttpURLConnection;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -35,11 +37,14 @@ import java.util.stream.Collectors;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.ExtensionList;
+import hudson.Util;
 import hudson.model.AdministrativeMonitor;
 import hudson.model.Item;
 import hudson.triggers.SafeTimerTask;
 import hudson.util.AdministrativeError;
 import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.LabelSelectorBuilder;
+import io.fabric8.kubernetes.api.model.ListOptions;
 import io.fabric8.kubernetes.api.model.ListOptionsBuilder;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.SecretList;
@@ -49,6 +54,8 @@ import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.Resource;
 import jenkins.model.Jenkins;
 import jenkins.util.SetContextClassLoader;
 import jenkins.util.Timer;
@@ -67,25 +74,68 @@ import com.cloudbees.plugins.credentials.Credentials;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.CredentialsScope;
 import com.cloudbees.plugins.credentials.CredentialsStore;
+import com.cloudbees.plugins.credentials.common.IdCredentials;
 import com.cloudbees.plugins.credentials.domains.DomainRequirement;
 
 @Extension
-public class KubernetesCredentialProvider extends CredentialsProvider implements Watcher<Secret> {
+public class KubernetesCredentialProvider extends CredentialsProvider {
 
     private static final Logger LOG = Logger.getLogger(KubernetesCredentialProvider.class.getName());
 
-    /** Map of {@link KubernetesSourcedCredential} keyed by their credential ID */
-    private ConcurrentHashMap<String, KubernetesSourcedCredential> credentials = new ConcurrentHashMap<>();
+    private static final int HTTP_UNPROCESSABLE_ENTITY = 422;
 
+    /** The name of the cluster Jenkins is running in */
+    static final String LOCAL_CLUSTER = "local";
+
+    /** The cluster Jenkins is running in */
+    private final ClusterWatcher localCluster = new ClusterWatcher(LOCAL_CLUSTER, null);
+    /** All the clusters credentials are obtained from in order of precedence, starting with the {@link #localCluster} */
+    private volatile List<ClusterWatcher> clusters = Collections.singletonList(localCluster);
+
+    /**
+     * Guards creating and closing the {@link #client}, which happen from the watch and timer threads of the local cluster
+     * as well as from the provider. Nothing else is locked while holding it.
+     */
+    private final Object clientLock = new Object();
     @CheckForNull
     private KubernetesClient client;
+    /** The selector used to list and watch secrets, {@code null} until the provider has been started */
     @CheckForNull
-    private Watch watch;
+    private volatile LabelSelector selector;
     /** Attempt to reconnect k8s client on exception */
     private boolean reconnectClientOnException = Boolean.parseBoolean(System.getProperty(KubernetesCredentialProvider.class.getName() + ".reconnectClientOnException", "true"));
     /** Delay in minutes before attempting to reconnect k8s client */
     private int reconnectClientDelayMins = Integer.getInteger(KubernetesCredentialProvider.class.getName() + ".reconnectClientDelayMins", 5);
 
+    /** In process evaluation of the label selector used for the watch */
+    private volatile LabelSelectorMatcher selectorMatcher = LabelSelectorMatcher.ANY;
+
+    /** The enabled metrics, resolved when the provider is started so that recording them is cheap */
+    private volatile KubernetesCredentialProviderMetrics metrics = KubernetesCredentialProviderMetrics.NOOP;
+
+    /** Reports spans to OpenTelemetry if it is available, resolved when the provider is started */
+    private volatile ProviderTracing tracing = ProviderTracing.NOOP;
+
+    /** Measures the time secret updates take to become visible, {@code null} if Jenkins is not running */
+    @CheckForNull
+    private volatile PropagationLagMonitor lagMonitor;
+
+    /** Samples the credential lookups, {@code null} unless lookup profiling is enabled */
+    @CheckForNull
+    private final CredentialLookupProfiler lookupProfiler = CredentialLookupProfiler.fromSystemProperties();
+
+    /** The most recent watch events of all the clusters */
+    private final WatchEventLog eventLog = WatchEventLog.fromSystemProperties();
+
+    /** The size limits of the secrets to convert */
+    private final CredentialSizes sizes = CredentialSizes.fromSystemProperties();
+
+    /** The number of startups whose timings are kept */
+    static final int MAX_STARTUPS = 10;
+
+    /** The timings of the most recent startups of each cluster, oldest first */
+    private final Deque<StartupTimings> startups = new ArrayDeque<>();
+
     /** A map storing credential scores scoped to ModelObjects, each ModelObject has its own credential store */
     private final Map<ModelObject, KubernetesCredentialsStore> lazyStoreCache = new HashMap<>();
 
@@ -95,61 +145,165 @@ public class KubernetesCredentialProvider extends CredentialsProvider implements
      */
     static final String LABEL_SELECTOR = KubernetesCredentialProvider.class.getName() + ".labelSelector";
 
+    /**
+     * Comma separated list of namespaces to watch for secrets, used when no namespaces are set in the global configuration.
+     * When neither is set the namespace of the Kubernetes client is watched.
+     */
+    static final String NAMESPACES = KubernetesCredentialProvider.class.getName() + ".namespaces";
+
+    /**
+     * Use a single cluster scoped list+watch of secrets instead of one per namespace, used when not enabled in the global configuration.
+     * When enabled the namespaces to watch are applied as a filter in process.
+     * @see #NAMESPACES
+     */
+    static final String CLUSTER_SCOPED = KubernetesCredentialProvider.class.getName() + ".clusterScoped";
+
+    /**
+     * The key of the cluster scoped watcher, which is not a valid namespace name so can never clash with a namespace.
+     */
+    static final String ANY_NAMESPACE = "*";
+
+    /**
+     * List only the metadata of secrets, getting the full secret only when it is new or has changed since it was last
+     * converted. This avoids transferring the data of every secret each time the watch is (re)started.
+     */
+    static final String METADATA_ONLY = KubernetesCredentialProvider.class.getName() + ".metadataOnly";
+
+    /**
+     * Only list and watch secrets of the types that the installed {@link SecretToCredentialConverter}s can convert,
+     * when all of them declare their {@link SecretToCredentialConverter#getSupportedTypes() supported types}.
+     */
+    static final String CONVERTIBLE_TYPES_ONLY = KubernetesCredentialProvider.class.getName() + ".convertibleTypesOnly";
+
+    /**
+     * Stream the existing secrets of a namespace as watch events ({@code sendInitialEvents}) rather than listing them,
+     * falling back to listing if the API server does not support it.
+     */
+    static final String WATCH_LIST = KubernetesCredentialProvider.class.getName() + ".watchList";
+
+    /**
+     * The time to wait for the API server to signal the end of the initial events of a {@link #WATCH_LIST} before
+     * assuming it is not supported.
+     */
+    static final String WATCH_LIST_TIMEOUT_SECONDS = KubernetesCredentialProvider.class.getName() + ".watchListTimeoutSeconds";
+
+    /** The maximum number of secrets to list in a single request, {@code 0} (the default) to list all secrets in one request */
+    static final String LIST_PAGE_SIZE = KubernetesCredentialProvider.class.getName() + ".listPageSize";
+
+    /**
+     * List secrets from the watch cache of the API server rather than with a quorum read from etcd.
+     * The first list of a namespace accepts any resourceVersion ({@code resourceVersion=0}), and relists accept any
+     * resourceVersion not older than the last one seen ({@code resourceVersionMatch=NotOlderThan}) so credentials never go
+     * back in time. The following watch brings any stale list up to date.
+     */
+    static final String LIST_FROM_WATCH_CACHE = KubernetesCredentialProvider.class.getName() + ".listFromWatchCache";
+
+    /** The annotation of the bookmark that marks the end of the initial events of a watch with {@code sendInitialEvents} */
+    static final String INITIAL_EVENTS_END_ANNOTATION = "k8s.io/initial-events-end";
+
     KubernetesClient getKubernetesClient() {
-        if (client == null) {
-            ConfigBuilder cb = new ConfigBuilder();
-            Config config = cb.build();
-            try (SetContextClassLoader ignored = new SetContextClassLoader(KubernetesCredentialProvider.class)) {
-                client = new KubernetesClientBuilder().withConfig(config).build();
+        synchronized (clientLock) {
+            if (client == null) {
+                ConfigBuilder cb = new ConfigBuilder();
+                Config config = KubernetesClientSettings.apply(getClientSettings(), cb.build());
+                try (SetContextClassLoader ignored = new SetContextClassLoader(KubernetesCredentialProvider.class)) {
+                    client = new KubernetesClientBuilder().withConfig(config)
+                            .withHttpClientBuilderConsumer(builder -> builder.addOrReplaceInterceptor(ApiTraffic.INTERCEPTOR, localCluster.traffic.interceptor()))
+                            .build();
+                }
             }
+            return client;
         }
-        return client;
+    }
+
+    /**
+     * @return the configured tuning of the Kubernetes clients, {@code null} if none has been configured.
+     */
+    @CheckForNull
+    static KubernetesClientSettings getClientSettings() {
+        KubernetesCredentialProviderConfiguration configuration = KubernetesCredentialProviderConfiguration.get();
+        return configuration == null ? null : configuration.getClientSettings();
+    }
+
+    /**
+     * Obtain the namespaces that have been explicitly configured.
+     * @return the configured namespaces, empty if none have been configured.
+     */
+    List<String> getConfiguredNamespaces() {
+        KubernetesCredentialProviderConfiguration configuration = KubernetesCredentialProviderConfiguration.get();
+        if (configuration != null && !configuration.getNamespaceList().isEmpty()) {
+            return configuration.getNamespaceList();
+        }
+        return KubernetesCredentialProviderConfiguration.parseNamespaces(System.getProperty(NAMESPACES));
+    }
+
+    /**
+     * @return {@code true} if a single cluster scoped watch should be used rather than one watch per namespace.
+     */
+    boolean isClusterScoped() {
+        KubernetesCredentialProviderConfiguration configuration = KubernetesCredentialProviderConfiguration.get();
+        return (configuration != null && configuration.isClusterScoped()) || Boolean.getBoolean(CLUSTER_SCOPED);
+    }
+
+    /**
+     * @return {@code true} if only the metadata of secrets should be listed.
+     * @see #METADATA_ONLY
+     */
+    boolean isMetadataOnly() {
+        return Boolean.getBoolean(METADATA_ONLY);
+    }
+
+    /**
+     * @return the additional clusters to obtain credentials from, in order of precedence.
+     */
+    List<KubernetesClusterSource> getClusterSources() {
+        KubernetesCredentialProviderConfiguration configuration = KubernetesCredentialProviderConfiguration.get();
+        return configuration == null ? Collections.emptyList() : configuration.getClusters();
     }
 
     @Initializer(after=InitMilestone.PLUGINS_PREPARED, fatal=false)
     @Restricted(NoExternalUse.class) // only for callbacks from Jenkins
     public void startWatchingForSecrets() {
-        final String initAdminMonitorId = getClass().getName() + ".initialize";
+        metrics = KubernetesCredentialProviderMetrics.get();
+        lagMonitor = PropagationLagMonitor.get();
+        tracing = ProviderTracing.get();
+        KubernetesCredentialProviderManagement.register(this);
+        try (ProviderTracing.Span ignored = tracing.start("KubernetesCredentialProvider.startWatchingForSecrets")) {
+            if (doStartWatchingForSecrets()) {
+                // the local cluster is listed without holding the monitor of the provider
+                // if the client can not be created only the local cluster is retried, the additional clusters are left alone
+                localCluster.start();
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the provider was started and the local cluster should be started.
+     */
+    private synchronized boolean doStartWatchingForSecrets() {
         final String labelSelectorAdminMonitorId = getClass().getName() + ".labelSelector";
         String labelSelector = System.getProperty(LABEL_SELECTOR);
         try {
-            KubernetesClient _client = getKubernetesClient();
-            LOG.log(Level.FINER, "Using namespace: {0}", String.valueOf(_client.getNamespace()));
-            LabelSelector selector = LabelSelectorExpressions.parse(labelSelector);
-            LOG.log(Level.INFO, "retrieving secrets with selector: {0}, {1}", new String[]{SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL, Objects.toString(selector)});
-
-            // load current set of secrets into provider
-            LOG.log(Level.FINER, "retrieving secrets");
-            SecretList list = _client.secrets().withLabelSelector(selector).withLabel(SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL).list();
-            ConcurrentHashMap<String, KubernetesSourcedCredential> _credentials = new  ConcurrentHashMap<>();
-            List<Secret> secretList = list.getItems();
-            for (Secret s : secretList) {
-                LOG.log(Level.FINE, "Secret Added - {0}", SecretUtils.getCredentialId(s));
-                addSecret(s, _credentials);
-            }
-            credentials = _credentials;
-
-            // start watching new secrets before we list the current set of secrets so we don't miss any events
-            LOG.log(Level.FINER, "registering watch");
-            // XXX https://github.com/fabric8io/kubernetes-client/issues/1014
-            // watch(resourceVersion, watcher) is deprecated but there is nothing to say why?
-            ListOptionsBuilder lob = new ListOptionsBuilder();
-            lob.withResourceVersion(list.getMetadata().getResourceVersion());
-            watch = _client.secrets().withLabelSelector(selector).withLabel(SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL).watch(lob.build(), this);
-            LOG.log(Level.FINER, "registered watch, retrieving secrets");
-
-            // successfully initialized, clear any previous monitors
-            clearAdminMonitors(initAdminMonitorId, labelSelectorAdminMonitorId);
-        } catch (KubernetesClientException kex) {
-            LOG.log(Level.SEVERE, "Failed to initialise k8s secret provider, secrets from Kubernetes will not be available", kex);
-            if (reconnectClientOnException) {
-                reconnectLater();
+            LabelSelectorExpressions.Compiled compiledSelector = LabelSelectorExpressions.compile(labelSelector);
+            LabelSelector _selector = compiledSelector.getSelector();
+            LabelSelectorMatcher _selectorMatcher = compiledSelector.getMatcher();
+            if (Boolean.getBoolean(CONVERTIBLE_TYPES_ONLY)) {
+                Set<String> types = SecretToCredentialConverter.allSupportedTypes();
+                if (types == null || types.isEmpty()) {
+                    LOG.log(Level.INFO, "Not all SecretToCredentialConverters declare the types they support, secrets of all types will be watched");
+                } else {
+                    _selector = new LabelSelectorBuilder(_selector)
+                            .addNewMatchExpression()
+                                .withKey(SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL)
+                                .withOperator("In")
+                                .withValues(new ArrayList<>(types))
+                            .endMatchExpression()
+                            .build();
+                    _selectorMatcher = LabelSelectorMatcher.compile(_selector);
+                }
             }
-            // Only report the latest failure
-            clearAdminMonitors(initAdminMonitorId);
-            new AdministrativeError(initAdminMonitorId,
-                    "Failed to initialize Kubernetes secret provider",
-                    "Credentials from Kubernetes Secrets will not be available.", kex);
+            selector = _selector;
+            selectorMatcher = _selectorMatcher;
         } catch (LabelSelectorParseException lex) {
             LOG.log(Level.SEVERE, "Failed to initialise k8s secret provider, secrets from Kubernetes will not be available", lex);
             // Only report the latest failure
@@ -158,22 +312,331 @@ public class KubernetesCredentialProvider extends CredentialsProvider implements
                     "Failed to parse Kubernetes secret label selector",
                     "Failed to parse Kubernetes secret <a href=\"https://kubernetes.io/docs/concepts/overview/working-with-objects/labels/#label-selectors\" _target=\"blank\">label selector</a> " +
                             "expression \"<code>" + labelSelector + "</code>\". Secrets from Kubernetes will not be available. ", lex);
+            return false;
         }
+        clearAdminMonitors(labelSelectorAdminMonitorId);
+        LOG.log(Level.INFO, "retrieving secrets with selector: {0}, {1}", new String[]{SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL, Objects.toString(selector)});
+
+        // additional clusters are started in the background so that an unreachable cluster does not hold up startup
+        updateClusters(true);
+        return true;
     }
 
     /**
-     * Schedule a future task to attempt to reconnect to the kubernetes client.
-     * @see #startWatchingForSecrets()
-     * @see Timer
+     * Apply changes to the configuration, starting and stopping watches as needed.
+     * Namespaces and clusters whose configuration has not changed are left untouched, unless the client settings have
+     * changed in which case every cluster is started again with a new client.
+     * Only the set of clusters is updated while holding the monitor of the provider, the additional clusters are started
+     * and stopped in the background and the local cluster is updated afterwards, so that a slow or unreachable cluster
+     * does not hold up the provider.
+     * @param clientSettingsChanged {@code true} if the {@link KubernetesClientSettings} have changed.
      */
-    private void reconnectLater() {
-        LOG.log(Level.INFO, "Attempting to reconnect Kubernetes client in {0} mins", reconnectClientDelayMins);
-        Timer.get().schedule(new SafeTimerTask() {
-            @Override
-            protected void doRun() throws Exception {
-                KubernetesCredentialProvider.this.startWatchingForSecrets();
+    void configurationChanged(boolean clientSettingsChanged) {
+        synchronized (this) {
+            if (selector == null) {
+                // not started (or already stopped), the configuration will be picked up when the provider is started.
+                return;
+            }
+            if (clientSettingsChanged) {
+                LOG.log(Level.INFO, "Kubernetes client settings changed, reconnecting to all clusters");
+            }
+            updateClusters(clientSettingsChanged);
+        }
+        if (clientSettingsChanged) {
+            // the credentials are kept until the namespaces have been listed again with the new clients
+            localCluster.restart();
+        } else {
+            localCluster.update();
+        }
+    }
+
+    /**
+     * Reconcile the additional clusters with the configured cluster sources.
+     * Clusters are started and stopped in the background so that an unreachable cluster does not hold up the caller.
+     * @param restart {@code true} to restart the watches of clusters whose configuration has not changed, with a new client.
+     */
+    private synchronized void updateClusters(boolean restart) {
+        Map<String, ClusterWatcher> existing = new HashMap<>();
+        for (ClusterWatcher cluster : clusters) {
+            if (cluster != localCluster) {
+                existing.put(cluster.name, cluster);
+            }
+        }
+        List<ClusterWatcher> updated = new ArrayList<>();
+        updated.add(localCluster);
+        List<ClusterWatcher> toStart = new ArrayList<>();
+        List<ClusterWatcher> toRestart = new ArrayList<>();
+        List<ClusterWatcher> toStop = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (KubernetesClusterSource source : getClusterSources()) {
+            String name = source.getName();
+            if (LOCAL_CLUSTER.equals(name) || !names.add(name)) {
+                LOG.log(Level.WARNING, "Ignoring Kubernetes cluster with duplicate name {0}", name);
+                continue;
+            }
+            ClusterWatcher cluster = existing.remove(name);
+            if (cluster != null && cluster.source != null && cluster.source.equals(source)) {
+                if (restart) {
+                    toRestart.add(cluster);
+                }
+            } else {
+                if (cluster != null) {
+                    toStop.add(cluster);
+                }
+                cluster = new ClusterWatcher(name, source);
+                toStart.add(cluster);
+            }
+            updated.add(cluster);
+        }
+        for (ClusterWatcher removed : existing.values()) {
+            LOG.log(Level.INFO, "Stopping watching secrets in cluster {0}", removed.name);
+            toStop.add(removed);
+        }
+        clusters = Collections.unmodifiableList(updated);
+        for (ClusterWatcher cluster : toStop) {
+            Timer.get().submit(new SafeTimerTask() {
+                @Override
+                protected void doRun() throws Exception {
+                    cluster.stop();
+                }
+            });
+        }
+        for (ClusterWatcher cluster : toStart) {
+            Timer.get().submit(new SafeTimerTask() {
+                @Override
+                protected void doRun() throws Exception {
+                    if (cluster.isActive()) {
+                        cluster.start();
+                    }
+                }
+            });
+        }
+        for (ClusterWatcher cluster : toRestart) {
+            Timer.get().submit(new SafeTimerTask() {
+                @Override
+                protected void doRun() throws Exception {
+                    cluster.restart();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the number of credentials obtained from all the clusters, including any shadowed by a credential with the same ID.
+     */
+    int getCredentialCount() {
+        int count = 0;
+        for (ClusterWatcher cluster : clusters) {
+            count += cluster.credentials.size();
+        }
+        return count;
+    }
+
+    private void recordStartup(StartupTimings timings) {
+        LOG.log(Level.FINE, "Startup timings: {0}", timings);
+        synchronized (startups) {
+            startups.addLast(timings);
+            while (startups.size() > MAX_STARTUPS) {
+                startups.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * @return the timings of the most recent startups of each cluster, oldest first.
+     */
+    List<StartupTimings> getStartupTimings() {
+        synchronized (startups) {
+            return new ArrayList<>(startups);
+        }
+    }
+
+    /**
+     * @return the most recent watch events of all the clusters, the most recent first.
+     */
+    List<WatchEventLog.Entry> getRecentWatchEvents() {
+        return eventLog.getEntries();
+    }
+
+    /**
+     * @return the number of credentials of each credentials type, including any shadowed by a credential with the same ID.
+     */
+    Map<String, Integer> getCredentialCountsByType() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (ClusterWatcher cluster : clusters) {
+            for (KubernetesSourcedCredential credential : cluster.credentials.getCredentials()) {
+                counts.merge(credential.getType() == null ? "<unknown>" : credential.getType(), 1, Integer::sum);
             }
-        }, reconnectClientDelayMins, TimeUnit.MINUTES);
+        }
+        return counts;
+    }
+
+    /**
+     * @return the number of credentials obtained from each namespace, keyed by {@code cluster/namespace}.
+     */
+    Map<String, Integer> getCredentialCountsByNamespace() {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (ClusterWatcher cluster : clusters) {
+            for (String namespace : cluster.credentials.getNamespaces()) {
+                counts.put(cluster.name + '/' + namespace, cluster.credentials.getCredentials(namespace).size());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return the estimated heap retained by all the credentials, in bytes.
+     * @see CredentialSizes#retainedSize
+     */
+    long getEstimatedCredentialBytes() {
+        long bytes = 0;
+        for (ClusterWatcher cluster : clusters) {
+            for (KubernetesSourcedCredential credential : cluster.credentials.getCredentials()) {
+                bytes += credential.getEstimatedSize();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the estimated heap retained by the credentials of each credentials type, in bytes.
+     */
+    Map<String, Long> getEstimatedCredentialBytesByType() {
+        Map<String, Long> bytes = new TreeMap<>();
+        for (ClusterWatcher cluster : clusters) {
+            for (KubernetesSourcedCredential credential : cluster.credentials.getCredentials()) {
+                bytes.merge(credential.getType() == null ? "<unknown>" : credential.getType(), credential.getEstimatedSize(), Long::sum);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the estimated heap retained by the credentials of each namespace in bytes, keyed by {@code cluster/namespace}.
+     */
+    Map<String, Long> getEstimatedCredentialBytesByNamespace() {
+        Map<String, Long> bytes = new TreeMap<>();
+        for (ClusterWatcher cluster : clusters) {
+            for (String namespace : cluster.credentials.getNamespaces()) {
+                long namespaceBytes = 0;
+                for (KubernetesSourcedCredential credential : cluster.credentials.getCredentials(namespace)) {
+                    namespaceBytes += credential.getEstimatedSize();
+                }
+                bytes.put(cluster.name + '/' + namespace, namespaceBytes);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Describe the watch of every namespace of every cluster, each map is keyed by {@code cluster/namespace}.
+     * @param states filled with the state of each watch.
+     * @param resourceVersions filled with the last resourceVersion seen by each watch.
+     * @param listDurations filled with how long the last list of each namespace took in milliseconds.
+     */
+    void describeWatches(Map<String, String> states, Map<String, String> resourceVersions, Map<String, Long> listDurations) {
+        for (ClusterWatcher cluster : clusters) {
+            cluster.describeWatches(states, resourceVersions, listDurations);
+        }
+    }
+
+    /**
+     * @return the number of times the watches have been restarted or retried, keyed by cluster.
+     */
+    Map<String, Long> getReconnectAttempts() {
+        Map<String, Long> attempts = new TreeMap<>();
+        for (ClusterWatcher cluster : clusters) {
+            attempts.put(cluster.name, cluster.reconnectAttempts.sum());
+        }
+        return attempts;
+    }
+
+    /**
+     * @return the requests made to the API server of each cluster, keyed by cluster.
+     */
+    Map<String, ApiTraffic> getApiTraffic() {
+        Map<String, ApiTraffic> traffic = new TreeMap<>();
+        for (ClusterWatcher cluster : clusters) {
+            traffic.put(cluster.name, cluster.traffic);
+        }
+        return traffic;
+    }
+
+    /**
+     * @return the secrets that are known to fail to convert, keyed by cluster.
+     */
+    Map<String, List<ConversionFailureCache.Failure>> getConversionFailures() {
+        Map<String, List<ConversionFailureCache.Failure>> failures = new TreeMap<>();
+        for (ClusterWatcher cluster : clusters) {
+            failures.put(cluster.name, cluster.conversionFailures.getFailures());
+        }
+        return failures;
+    }
+
+    /**
+     * List the secrets of all the namespaces of all the clusters again and restart their watches.
+     * The clusters are relisted one after the other without holding the monitor of the provider.
+     * @return the number of namespaces relisted.
+     * @throws IllegalStateException if the provider has not been started.
+     */
+    int relist() {
+        checkStarted();
+        int count = 0;
+        for (ClusterWatcher cluster : clusters) {
+            count += cluster.relist();
+        }
+        return count;
+    }
+
+    /**
+     * Recreate the clients of all the clusters and list and watch their secrets again.
+     * The clusters are reconnected one after the other without holding the monitor of the provider.
+     * @throws IllegalStateException if the provider has not been started.
+     */
+    void reconnect() {
+        checkStarted();
+        for (ClusterWatcher cluster : clusters) {
+            cluster.reconnect();
+        }
+    }
+
+    /**
+     * @return the watcher of a namespace of the local cluster, {@code null} if the namespace is not being watched.
+     */
+    @CheckForNull
+    Watcher<Secret> getWatcher(String namespace) {
+        return localCluster.namespaceWatchers.get(namespace);
+    }
+
+    private void checkStarted() {
+        if (selector == null) {
+            throw new IllegalStateException("The Kubernetes credentials provider has not been started");
+        }
+    }
+
+    /**
+     * Obtain the namespace qualified key of a secret, as used by {@link ConversionFailureCache}.
+     * Credential IDs are qualified with their namespace so that secrets of the same name in different namespaces do not collide.
+     */
+    static String credentialKey(String namespace, String credentialId) {
+        return namespace + '/' + credentialId;
+    }
+
+    private String getInitAdminMonitorId() {
+        return getClass().getName() + ".initialize";
+    }
+
+    private void reportInitFailure(String initAdminMonitorId, String message, Exception cause) {
+        // Only report the latest failure
+        clearAdminMonitors(initAdminMonitorId);
+        new AdministrativeError(initAdminMonitorId,
+                "Failed to initialize Kubernetes secret provider",
+                message, cause);
+    }
+
+    private static boolean isInitialEventsEnd(Secret bookmark) {
+        Map<String, String> annotations = bookmark.getMetadata() == null ? null : bookmark.getMetadata().getAnnotations();
+        return annotations != null && "true".equals(annotations.get(INITIAL_EVENTS_END_ANNOTATION));
     }
 
     private void clearAdminMonitors(String... ids) {
@@ -185,47 +648,79 @@ public class KubernetesCredentialProvider extends CredentialsProvider implements
 
     @Terminator(after=TermMilestone.STARTED)
     @Restricted(NoExternalUse.class) // only for callbacks from Jenkins
-    public void stopWatchingForSecrets() {
-        if (watch != null) {
-            watch.close();
-            watch = null;
+    public synchronized void stopWatchingForSecrets() {
+        selector = null;
+        for (ClusterWatcher cluster : clusters) {
+            cluster.stop();
         }
-        if (client != null) {
-            client.close();
-            client = null;
+        closeClient();
+        KubernetesCredentialProviderManagement.unregister(this);
+    }
+
+    private void closeClient() {
+        synchronized (clientLock) {
+            if (client != null) {
+                client.close();
+                client = null;
+            }
         }
     }
 
     @Override
     public <C extends Credentials> List<C> getCredentials(Class<C> type, ItemGroup itemGroup, Authentication authentication) {
+        CredentialLookupProfiler profiler = lookupProfiler;
+        if (profiler == null || !profiler.sample()) {
+            return lookupCredentials(type, itemGroup, authentication);
+        }
+        long start = System.nanoTime();
+        List<C> credentials = lookupCredentials(type, itemGroup, authentication);
+        profiler.record(type, itemGroup, credentials.size(), System.nanoTime() - start);
+        return credentials;
+    }
+
+    private <C extends Credentials> List<C> lookupCredentials(Class<C> type, ItemGroup itemGroup, Authentication authentication) {
         LOG.log(Level.FINEST, "getCredentials called with type {0}, itemgroup {1} and authentication {2}", new Object[] {type.getName(), itemGroup, authentication});
         if (ACL.SYSTEM.equals(authentication)) {
             ArrayList<C> list = new ArrayList<>();
-            for (KubernetesSourcedCredential credential : credentials.values()) {
-                // Parent group of item can be null
-                if(itemGroup == null && !credential.getItemGroups().isEmpty()) {
-                    continue;
-                }
-                if(itemGroup != null) {
-                    String itemGroupPath = itemGroup.getFullName();
-                    Collection<String> itemGroups = credential.getItemGroups();
-                    LOG.log(Level.FINEST, "getCredentials checking if itemGroupPath {0} is in itemGroups of {1} ({2})", new Object[] { itemGroupPath, credential.getId(), itemGroups });
-                    if (!itemGroups.isEmpty() && itemGroups.stream().noneMatch(itemGroupPath::equals)) {
-                        LOG.log(Level.FINEST, "getCredentials itemGroupPath not found in: {0}", itemGroups);
-                        continue;
-                    }
-                }
+            // IDs from earlier clusters, and from earlier namespaces of the same cluster, take precedence over the same IDs later on
+            List<Map<String, KubernetesSourcedCredential>> earlierShards = null;
+            for (ClusterWatcher cluster : clusters) {
+                for (Map<String, KubernetesSourcedCredential> shard : cluster.credentials.getShards()) {
+                    for (KubernetesSourcedCredential credential : shard.values()) {
+                        if (earlierShards != null && isShadowed(earlierShards, credential.getId())) {
+                            LOG.log(Level.FINEST, "getCredentials {0} from cluster {1} is shadowed by an earlier namespace or cluster, ignoring", new Object[] {credential.getId(), cluster.name});
+                            continue;
+                        }
+                        // Parent group of item can be null
+                        if(itemGroup == null && !credential.getItemGroups().isEmpty()) {
+                            continue;
+                        }
+                        if(itemGroup != null) {
+                            String itemGroupPath = itemGroup.getFullName();
+                            Collection<String> itemGroups = credential.getItemGroups();
+                            LOG.log(Level.FINEST, "getCredentials checking if itemGroupPath {0} is in itemGroups of {1} ({2})", new Object[] { itemGroupPath, credential.getId(), itemGroups });
+                            if (!itemGroups.isEmpty() && itemGroups.stream().noneMatch(itemGroupPath::equals)) {
+                                LOG.log(Level.FINEST, "getCredentials itemGroupPath not found in: {0}", itemGroups);
+                                continue;
+                            }
+                        }
 
-                // is s a type of type then populate the list...
-                LOG.log(Level.FINEST, "getCredentials {0} is a possible candidate", credential.getId());
-                if (CredentialsScope.SYSTEM == credential.getScope() && !(itemGroup instanceof Jenkins)) {
-                    LOG.log(Level.FINEST, "getCredentials {0} has SYSTEM scope, but the context is not Jenkins, ignoring", credential.getId());
-                } else if (type.isAssignableFrom(credential.getIdCredentials().getClass())) {
-                    LOG.log(Level.FINEST, "getCredentials {0} matches, adding to list", credential.getId());
-                    // cast to keep generics happy even though we are assignable..
-                    list.add(type.cast(credential.getIdCredentials()));
-                } else {
-                    LOG.log(Level.FINEST, "getCredentials {0} does not match", credential.getId());
+                        // is s a type of type then populate the list...
+                        LOG.log(Level.FINEST, "getCredentials {0} is a possible candidate", credential.getId());
+                        if (CredentialsScope.SYSTEM == credential.getScope() && !(itemGroup instanceof Jenkins)) {
+                            LOG.log(Level.FINEST, "getCredentials {0} has SYSTEM scope, but the context is not Jenkins, ignoring", credential.getId());
+                        } else if (type.isAssignableFrom(credential.getIdCredentials().getClass())) {
+                            LOG.log(Level.FINEST, "getCredentials {0} matches, adding to list", credential.getId());
+                            // cast to keep generics happy even though we are assignable..
+                            list.add(type.cast(credential.getIdCredentials()));
+                        } else {
+                            LOG.log(Level.FINEST, "getCredentials {0} does not match", credential.getId());
+                        }
+                    }
+                    if (earlierShards == null) {
+                        earlierShards = new ArrayList<>();
+                    }
+                    earlierShards.add(shard);
                 }
             }
             return list;
@@ -233,6 +728,15 @@ public class KubernetesCredentialProvider extends CredentialsProvider implements
         return emptyList();
     }
 
+    private static boolean isShadowed(List<Map<String, KubernetesSourcedCredential>> earlierShards, String credentialId) {
+        for (Map<String, KubernetesSourcedCredential> shard : earlierShards) {
+            if (shard.containsKey(credentialId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     @NonNull
     public <C extends Credentials> List<C> getCredentials(@NonNull Class<C> type,
@@ -250,93 +754,1149 @@ public class KubernetesCredentialProvider extends CredentialsProvider implements
         return getCredentials(type, item, authentication);
     }
 
+    /**
+     * @return the profiler sampling the credential lookups, {@code null} unless lookup profiling is enabled.
+     */
+    @CheckForNull
+    CredentialLookupProfiler getLookupProfiler() {
+        return lookupProfiler;
+    }
+
     @SuppressWarnings("null")
     private final @NonNull <T> List<T> emptyList() {
         // just a separate method to avoid having to suppress "null" for the entirety of getCredentials
         return Collections.emptyList();
     }
 
-    private void addSecret(Secret secret) {
-        addSecret(secret, credentials);
-    }
-
-    private void addSecret(Secret secret, Map<String, KubernetesSourcedCredential> map) {
-        KubernetesSourcedCredential cred = convertSecret(secret);
+    private void addSecret(String namespace, Secret secret, ShardedCredentialStore store, ConversionFailureCache failures) {
+        if (failures.isKnownFailure(namespace, secret)) {
+            LOG.log(Level.FINE, "Secret {0} previously failed to convert and has not changed, ignoring", SecretUtils.getCredentialId(secret));
+            return;
+        }
+        KubernetesSourcedCredential cred = convertSecret(namespace, secret, failures);
         String credentialId = SecretUtils.getCredentialId(secret);
         if (cred != null) {
-            map.put(credentialId, cred);
+            store.put(namespace, credentialId, cred);
         }
     }
 
-    @Override
-    public void eventReceived(Action action, Secret secret) {
-        String credentialId = SecretUtils.getCredentialId(secret);
-        switch (action) {
-            case ADDED: {
-                LOG.log(Level.FINE, "Secret Added - {0}", credentialId);
-                addSecret(secret);
-                break;
-            }
-            case MODIFIED: {
-                LOG.log(Level.FINE, "Secret Modified - {0}", credentialId);
-                addSecret(secret);
-                break;
+    /**
+     * Convert and add a batch of secrets, grouping them by type so that each converter is called once per type.
+     * Secrets that previously failed to convert are skipped unless they have changed since.
+     */
+    private void addSecrets(String namespace, Collection<Secret> secrets, ShardedCredentialStore store, ConversionFailureCache failures) {
+        Map<String, List<Secret>> secretsByType = new LinkedHashMap<>();
+        // item scopes are parsed once up front so that secrets with a malformed annotation are never converted
+        Map<Secret, Set<String>> itemScopes = new IdentityHashMap<>();
+        for (Secret s : secrets) {
+            LOG.log(Level.FINE, "Secret Added - {0}", SecretUtils.getCredentialId(s));
+            if (failures.isKnownFailure(namespace, s)) {
+                LOG.log(Level.FINE, "Secret {0} previously failed to convert and has not changed, ignoring", SecretUtils.getCredentialId(s));
+                continue;
             }
-            case DELETED: {
-                LOG.log(Level.FINE, "Secret Deleted - {0}", credentialId);
-                credentials.remove(credentialId);
-                break;
+            String type = getCredentialType(s);
+            try {
+                sizes.check(s);
+                itemScopes.put(s, SecretUtils.parseCredentialItemScopes(s));
+            } catch (CredentialsConvertionException ex) {
+                conversionFailed(namespace, s, type, ex, failures);
+                continue;
             }
-            case ERROR: {
-                // XXX  ????
-                LOG.log(Level.WARNING, "Action received of type Error. {0}", secret);
-                break;
+            secretsByType.computeIfAbsent(type, k -> new ArrayList<>()).add(s);
+        }
+        for (Map.Entry<String, List<Secret>> entry : secretsByType.entrySet()) {
+            String type = entry.getKey();
+            List<Secret> batch = entry.getValue();
+            SecretToCredentialConverter lookup = SecretToCredentialConverter.lookup(type);
+            if (lookup == null) {
+                LOG.log(Level.WARNING, "No SecretToCredentialConverter found to convert secrets of type {0}", type);
+                for (Secret s : batch) {
+                    failures.record(namespace, s, type, "No SecretToCredentialConverter found to convert secrets of type " + type);
+                    metrics.onConversionFailure(type, namespace);
+                }
+                continue;
             }
-            case BOOKMARK: {
-                // TODO handle bookmarks for efficient reconnect
-                break;
+            // the secrets whose outcome the converter has reported, so that they are not converted again if the batch fails
+            Set<Secret> reported = Collections.newSetFromMap(new IdentityHashMap<>());
+            long start = System.nanoTime();
+            try (ProviderTracing.Span span = tracing.start("KubernetesCredentialProvider.convert")
+                    .attribute(ProviderTracing.TYPE, type).attribute(ProviderTracing.NAMESPACE, namespace).attribute(ProviderTracing.SIZE, batch.size())) {
+                lookup.convertAll(batch, new SecretToCredentialConverter.ConversionCallback() {
+                    @Override
+                    public void onSuccess(Secret secret, IdCredentials credential) {
+                        reported.add(secret);
+                        failures.remove(namespace, secret.getMetadata().getName());
+                        store.put(namespace, SecretUtils.getCredentialId(secret),
+                                new KubernetesSourcedCredential(credential, itemScopes.get(secret), secret.getMetadata().getResourceVersion(), type, CredentialSizes.retainedSize(secret, credential)));
+                    }
+
+                    @Override
+                    public void onFailure(Secret secret, CredentialsConvertionException ex) {
+                        reported.add(secret);
+                        conversionFailed(namespace, secret, type, ex, failures);
+                    }
+                });
+            } catch (RuntimeException ex) {
+                // the secrets reported before the batch broke were attempted, the others are counted as they are converted individually
+                if (!reported.isEmpty()) {
+                    metrics.onConversion(type, reported.size(), System.nanoTime() - start);
+                }
+                // a broken batch implementation must not take out the other secrets of the same type
+                LOG.log(Level.WARNING, "Failed to convert batch of secrets of type " + type + ", converting the remaining "
+                        + (batch.size() - reported.size()) + " individually", ex);
+                for (Secret s : batch) {
+                    if (!reported.contains(s)) {
+                        addSecret(namespace, s, store, failures);
+                    }
+                }
+                continue;
             }
+            metrics.onConversion(type, batch.size(), System.nanoTime() - start);
         }
     }
 
-    @Override
-    public void onClose(WatcherException cause) {
-        if (cause != null) {
-            LOG.log(Level.WARNING, "Secrets watch stopped unexpectedly", cause);
-            LOG.log(Level.INFO, "Restating secrets watcher");
-            startWatchingForSecrets();
-        } else {
-            LOG.log(Level.INFO, "Secrets watcher stopped");
+    /**
+     * Check if the secret is one the provider should manage, that is it has a credentials type and matches the label
+     * selector.
+     */
+    private boolean isSelected(Secret s) {
+        Map<String, String> labels = s.getMetadata().getLabels();
+        return labels != null && labels.containsKey(SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL) && selectorMatcher.matches(labels);
+    }
+
+    private static String getCredentialType(Secret s) {
+        return s.getMetadata().getLabels().get(SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL);
+    }
+
+    private static void logConversionFailure(Secret s, String type, CredentialsConvertionException ex) {
+        // do not spam the logs with the stacktrace...
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "Failed to convert Secret '" + SecretUtils.getCredentialId(s) + "' of type " + type, ex);
+        }
+        else {
+            LOG.log(Level.WARNING, "Failed to convert Secret ''{0}'' of type {1} due to {2}", new Object[] {SecretUtils.getCredentialId(s), type, ex.getMessage()});
         }
     }
 
+    private void conversionFailed(String namespace, Secret s, String type, CredentialsConvertionException ex, ConversionFailureCache failures) {
+        logConversionFailure(s, type, ex);
+        failures.record(namespace, s, type, ex.getMessage());
+        metrics.onConversionFailure(type, namespace);
+    }
 
     @CheckForNull
     KubernetesSourcedCredential convertSecret(Secret s) {
-        String type = s.getMetadata().getLabels().get(SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL);
+        return convertSecret(s.getMetadata().getNamespace(), s, new ConversionFailureCache());
+    }
+
+    @CheckForNull
+    private KubernetesSourcedCredential convertSecret(String namespace, Secret s, ConversionFailureCache failures) {
+        String type = getCredentialType(s);
 
         SecretToCredentialConverter lookup = SecretToCredentialConverter.lookup(type);
         if (lookup != null) {
             try {
-                return new KubernetesSourcedCredential(
-                        lookup.convert(s),
-                        SecretUtils.getCredentialItemScopes(s)
-                );
-            } catch (CredentialsConvertionException ex) {
-                // do not spam the logs with the stacktrace...
-                if (LOG.isLoggable(Level.FINE)) {
-                    LOG.log(Level.FINE, "Failed to convert Secret '" + SecretUtils.getCredentialId(s) + "' of type " + type, ex);
-                }
-                else {
-                    LOG.log(Level.WARNING, "Failed to convert Secret ''{0}'' of type {1} due to {2}", new Object[] {SecretUtils.getCredentialId(s), type, ex.getMessage()});
+                Set<String> itemScopes = SecretUtils.parseCredentialItemScopes(s);
+                sizes.check(s);
+                long start = System.nanoTime();
+                KubernetesSourcedCredential credential;
+                try (ProviderTracing.Span span = tracing.start("KubernetesCredentialProvider.convert")
+                        .attribute(ProviderTracing.TYPE, type).attribute(ProviderTracing.NAMESPACE, namespace).attribute(ProviderTracing.SIZE, 1)) {
+                    try {
+                        IdCredentials converted = lookup.convert(s);
+                        credential = new KubernetesSourcedCredential(converted, itemScopes, s.getMetadata().getResourceVersion(), type, CredentialSizes.retainedSize(s, converted));
+                    } catch (CredentialsConvertionException ex) {
+                        span.error(ex);
+                        throw ex;
+                    } finally {
+                        // failures are attempts too, as they are in a batch
+                        metrics.onConversion(type, 1, System.nanoTime() - start);
+                    }
                 }
+                failures.remove(namespace, s.getMetadata().getName());
+                return credential;
+            } catch (CredentialsConvertionException ex) {
+                conversionFailed(namespace, s, type, ex, failures);
                 return null;
             }
         }
         LOG.log(Level.WARNING, "No SecretToCredentialConverter found to convert secrets of type {0}", type);
+        failures.record(namespace, s, type, "No SecretToCredentialConverter found to convert secrets of type " + type);
+        metrics.onConversionFailure(type, namespace);
         return null;
     }
 
+    /**
+     * The watches of the secrets of a single cluster and the credentials obtained from them.
+     * Each cluster has its own client and reconnects independently of the others.
+     * Watches are started and stopped while holding the monitor of the cluster, so that a watch closing, a retry and a
+     * change to the configuration can not interleave. The monitor of the provider, which guards the set of clusters, is
+     * always acquired first, and is not held while a cluster is started or listed.
+     */
+    private final class ClusterWatcher {
+
+        private final String name;
+
+        /** The source of the cluster, {@code null} for the {@link #localCluster} */
+        @CheckForNull
+        private final KubernetesClusterSource source;
+
+        /** The client of an additional cluster, the local cluster uses {@link #getKubernetesClient()} */
+        @CheckForNull
+        private KubernetesClient remoteClient;
+
+        /** The credentials obtained from the cluster, sharded by namespace */
+        private final ShardedCredentialStore credentials = new ShardedCredentialStore();
+
+        /** The list+watch of each namespace being watched, keyed by namespace */
+        private final ConcurrentHashMap<String, NamespaceWatcher> namespaceWatchers = new ConcurrentHashMap<>();
+
+        /**
+         * The namespaces secrets are accepted from when watching all namespaces, {@code null} to accept secrets from any namespace.
+         * @see #ANY_NAMESPACE
+         */
+        @CheckForNull
+        private volatile Set<String> namespaceFilter;
+
+        /** Namespaces that failed to initialize and have not yet recovered */
+        private final Set<String> failedNamespaces = ConcurrentHashMap.newKeySet();
+
+        /** Secrets of this cluster that could not be converted */
+        private final ConversionFailureCache conversionFailures = new ConversionFailureCache();
+
+        /** Limits the rate of LIST requests to the API server of the cluster */
+        private final ListRateLimiter listLimiter = ListRateLimiter.fromSystemProperties();
+
+        /** Stops LIST requests to the API server of the cluster after repeated failures */
+        private final ListCircuitBreaker listBreaker = ListCircuitBreaker.fromSystemProperties();
+
+        /** Set once the API server of the cluster is found not to support {@link #WATCH_LIST} */
+        private volatile boolean watchListUnsupported;
+
+        /** How long the last list of each namespace took in milliseconds, keyed by namespace */
+        private final ConcurrentHashMap<String, Long> listDurations = new ConcurrentHashMap<>();
+
+        /** The number of times a watch of the cluster has been restarted, or the cluster or a namespace retried */
+        private final LongAdder reconnectAttempts = new LongAdder();
+
+        /** The requests made to the API server of the cluster */
+        private final ApiTraffic traffic = new ApiTraffic();
+
+        /** The timings of the startup in progress, {@code null} if the cluster is not being started */
+        @CheckForNull
+        private volatile StartupTimings startup;
+
+        ClusterWatcher(String name, @CheckForNull KubernetesClusterSource source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        /**
+         * @return {@code true} if the provider has been started and this cluster has not been removed from the configuration.
+         */
+        boolean isActive() {
+            return selector != null && clusters.contains(this);
+        }
+
+        private synchronized KubernetesClient getClient() {
+            if (source == null) {
+                return getKubernetesClient();
+            }
+            if (remoteClient == null) {
+                remoteClient = source.createClient(ApiTraffic.INTERCEPTOR, traffic.interceptor());
+            }
+            return remoteClient;
+        }
+
+        /**
+         * Obtain the namespaces that should be watched.
+         * @param _client the client whose namespace is used if no namespaces have been configured.
+         * @return the namespaces to watch, or just {@link #ANY_NAMESPACE} if the watch is cluster scoped.
+         */
+        private List<String> getNamespaces(KubernetesClient _client) {
+            List<String> namespaces = source == null ? getConfiguredNamespaces() : source.getNamespaceList();
+            boolean clusterScoped = source == null ? isClusterScoped() : source.isClusterScoped();
+            // the credentials of the namespace configured first win when several namespaces have a secret with the same name
+            credentials.setNamespaceOrder(namespaces);
+            if (clusterScoped) {
+                namespaceFilter = namespaces.isEmpty() ? null : new HashSet<>(namespaces);
+                return Collections.singletonList(ANY_NAMESPACE);
+            }
+            namespaceFilter = null;
+            if (namespaces.isEmpty()) {
+                return Collections.singletonList(_client.getNamespace());
+            }
+            return namespaces;
+        }
+
+        /**
+         * Check if secrets from the namespace should be added when watching all namespaces.
+         */
+        boolean isAllowedNamespace(String namespace) {
+            Set<String> _namespaceFilter = namespaceFilter;
+            return _namespaceFilter == null || _namespaceFilter.contains(namespace);
+        }
+
+        private String getInitAdminMonitorId() {
+            String id = KubernetesCredentialProvider.this.getInitAdminMonitorId();
+            return source == null ? id : id + "." + name;
+        }
+
+        /**
+         * @return a description of the namespace for logs and administrative monitors.
+         */
+        private String describe(String namespace) {
+            String description = ANY_NAMESPACE.equals(namespace) ? "all namespaces" : "namespace " + namespace;
+            return source == null ? description : description + " of cluster " + name;
+        }
+
+        /**
+         * Create the client of the cluster (if needed) and start watching all of its namespaces.
+         */
+        synchronized void start() {
+            StartupTimings timings = new StartupTimings(name);
+            KubernetesClient _client;
+            try {
+                long clientStart = System.nanoTime();
+                _client = getClient();
+                timings.record(StartupTimings.Phase.CLIENT, System.nanoTime() - clientStart);
+            } catch (KubernetesClientException kex) {
+                if (source == null) {
+                    LOG.log(Level.SEVERE, "Failed to initialise k8s secret provider, secrets from Kubernetes will not be available", kex);
+                } else {
+                    LOG.log(Level.SEVERE, "Failed to create client for Kubernetes cluster " + name + ", secrets from this cluster will not be available", kex);
+                }
+                if (reconnectClientOnException) {
+                    reconnectLater();
+                }
+                reportInitFailure(getInitAdminMonitorId(), source == null
+                        ? "Credentials from Kubernetes Secrets will not be available."
+                        : "Credentials from Kubernetes Secrets in cluster <code>" + Util.escape(name) + "</code> will not be available.", kex);
+                return;
+            }
+            start(_client, timings);
+        }
+
+        /**
+         * Start (or restart) watching all the namespaces of the cluster.
+         * @param timings the timings of the startup, to which the time spent listing and watching is added.
+         */
+        synchronized void start(KubernetesClient _client, StartupTimings timings) {
+            startup = timings;
+            try {
+                List<String> namespaces = getNamespaces(_client);
+                LOG.log(Level.FINER, "Using namespaces of cluster {0}: {1}", new Object[] {name, namespaces});
+                for (String namespace : namespaceWatchers.keySet()) {
+                    if (!namespaces.contains(namespace)) {
+                        stopWatching(namespace);
+                    }
+                }
+                for (String namespace : namespaces) {
+                    startWatching(_client, namespace);
+                }
+            } finally {
+                startup = null;
+                timings.finish();
+                recordStartup(timings);
+            }
+        }
+
+        /**
+         * Reconcile the namespaces being watched with the configured namespaces, starting and stopping watches as needed.
+         * Namespaces that are still configured are left untouched.
+         */
+        synchronized void update() {
+            if (!isActive()) {
+                return;
+            }
+            KubernetesClient _client = getClient();
+            Set<String> previousFilter = namespaceFilter;
+            List<String> namespaces = getNamespaces(_client);
+            for (String namespace : namespaceWatchers.keySet()) {
+                if (!namespaces.contains(namespace)) {
+                    stopWatching(namespace);
+                }
+            }
+            for (String namespace : namespaces) {
+                // a cluster scoped watch is relisted if the filter changed so secrets from newly allowed namespaces are added
+                if (!namespaceWatchers.containsKey(namespace)
+                        || (ANY_NAMESPACE.equals(namespace) && !Objects.equals(previousFilter, namespaceFilter))) {
+                    startWatching(_client, namespace);
+                }
+            }
+        }
+
+        /**
+         * List the secrets in the namespace, replacing any credentials previously obtained from it, and then watch it for changes.
+         * Any existing watch of the namespace is closed.
+         * @return {@code true} if the namespace is being watched.
+         */
+        private synchronized boolean startWatching(KubernetesClient _client, String namespace) {
+            if (!listBreaker.allowList()) {
+                // keep the credentials we have and try again once the API server has had time to recover
+                long delay = listBreaker.getRemainingMillis();
+                LOG.log(Level.INFO, "Listing secrets in cluster {0} is failing, will list {1} in {2} ms", new Object[] {name, describe(namespace), delay});
+                failedNamespaces.add(namespace);
+                reconnectLater(namespace, delay, TimeUnit.MILLISECONDS);
+                return false;
+            }
+            NamespaceWatcher watcher = new NamespaceWatcher(_client, namespace);
+            NamespaceWatcher previous = namespaceWatchers.put(namespace, watcher);
+            if (previous != null) {
+                previous.close();
+            }
+            // the credentials of a watch that had not received all its initial events are not those of its resourceVersion
+            String previousResourceVersion = previous == null || previous.initial != null ? null : previous.resourceVersion;
+            long throttled = listLimiter.reserve();
+            if (throttled > 0) {
+                metrics.onListThrottled(name, throttled);
+                LOG.log(Level.FINE, "Listing {0} is throttled, will list it in {1} ms", new Object[] {describe(namespace), TimeUnit.NANOSECONDS.toMillis(throttled)});
+                listLater(watcher, previousResourceVersion, throttled);
+                return true;
+            }
+            return listAndWatch(watcher, previousResourceVersion);
+        }
+
+        /**
+         * List the secrets in the namespace of the watcher and then watch it for changes.
+         * @return {@code true} if the namespace is being watched.
+         */
+        private synchronized boolean listAndWatch(NamespaceWatcher watcher, @CheckForNull String previousResourceVersion) {
+            KubernetesClient _client = watcher.client;
+            String namespace = watcher.namespace;
+            boolean listed = false;
+            try {
+                long listStart = System.nanoTime();
+                FilterWatchListDeletable<Secret, SecretList, Resource<Secret>> secrets = secrets(_client, namespace);
+                if (Boolean.getBoolean(WATCH_LIST) && !watchListUnsupported && watchList(namespace, secrets, watcher)) {
+                    // the credentials are replaced once the initial events have been received
+                    return true;
+                }
+                // load current set of secrets into provider
+                LOG.log(Level.FINER, "retrieving secrets in {0}", describe(namespace));
+                ShardedCredentialStore _credentials = new ShardedCredentialStore();
+                // there is nothing to reuse on the initial list so there is no point listing only the metadata first
+                String resourceVersion = isMetadataOnly() && hasCredentials(namespace)
+                        ? listChangedSecrets(_client, namespace, secrets, previousResourceVersion, _credentials)
+                        : listSecrets(namespace, secrets, previousResourceVersion, _credentials);
+                long listNanos = System.nanoTime() - listStart;
+                listed = true;
+                listBreaker.recordSuccess();
+                replaceCredentials(namespace, _credentials);
+                listDurations.put(namespace, TimeUnit.NANOSECONDS.toMillis(listNanos));
+                StartupTimings _startup = startup;
+                if (_startup != null) {
+                    _startup.listed(listNanos);
+                }
+                watcher.resourceVersion = resourceVersion;
+
+                // start watching from the version we listed so we don't miss any events
+                LOG.log(Level.FINER, "registering watch for {0}", describe(namespace));
+                // XXX https://github.com/fabric8io/kubernetes-client/issues/1014
+                // watch(resourceVersion, watcher) is deprecated but there is nothing to say why?
+                ListOptionsBuilder lob = new ListOptionsBuilder();
+                lob.withResourceVersion(resourceVersion);
+                long watchStart = System.nanoTime();
+                watcher.watch = secrets.watch(lob.build(), watcher);
+                if (_startup != null) {
+                    _startup.record(StartupTimings.Phase.WATCH, System.nanoTime() - watchStart);
+                }
+                LOG.log(Level.FINER, "registered watch for {0}", describe(namespace));
+
+                // successfully initialized, clear any previous monitors once all namespaces are healthy
+                failedNamespaces.remove(namespace);
+                if (failedNamespaces.isEmpty()) {
+                    clearAdminMonitors(getInitAdminMonitorId());
+                }
+                return true;
+            } catch (KubernetesClientException kex) {
+                if (!listed && listBreaker.recordFailure()) {
+                    metrics.onListCircuitOpened(name);
+                    LOG.log(Level.WARNING, "Listing secrets in cluster {0} has failed repeatedly, not listing again for {1} ms",
+                            new Object[] {name, listBreaker.getRemainingMillis()});
+                }
+                LOG.log(Level.SEVERE, "Failed to initialise k8s secret provider for " + describe(namespace) + ", secrets from this namespace will not be available", kex);
+                failedNamespaces.add(namespace);
+                if (reconnectClientOnException) {
+                    reconnectLater(namespace);
+                }
+                reportInitFailure(getInitAdminMonitorId(), "Credentials from Kubernetes Secrets in <code>" + Util.escape(describe(namespace)) + "</code> will not be available.", kex);
+                return false;
+            }
+        }
+
+        /**
+         * Watch the namespace from a resourceVersion without listing it first, used while listing is failing.
+         * If the resourceVersion is too old the watch closes and the namespace is listed once the API server has recovered.
+         */
+        private synchronized void resumeWatching(KubernetesClient _client, String namespace, String resourceVersion) {
+            NamespaceWatcher watcher = new NamespaceWatcher(_client, namespace);
+            watcher.resourceVersion = resourceVersion;
+            NamespaceWatcher previous = namespaceWatchers.put(namespace, watcher);
+            if (previous != null) {
+                previous.close();
+            }
+            try {
+                ListOptionsBuilder lob = new ListOptionsBuilder();
+                lob.withResourceVersion(resourceVersion);
+                watcher.watch = secrets(_client, namespace).watch(lob.build(), watcher);
+                LOG.log(Level.FINER, "resumed watch for {0} from {1}", new Object[] {describe(namespace), resourceVersion});
+            } catch (KubernetesClientException kex) {
+                LOG.log(Level.WARNING, "Failed to resume watching " + describe(namespace), kex);
+                startWatching(_client, namespace);
+            }
+        }
+
+        private FilterWatchListDeletable<Secret, SecretList, Resource<Secret>> secrets(KubernetesClient _client, String namespace) {
+            LabelSelector _selector = selector;
+            return ANY_NAMESPACE.equals(namespace)
+                    ? _client.secrets().inAnyNamespace().withLabelSelector(_selector).withLabel(SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL)
+                    : _client.secrets().inNamespace(namespace).withLabelSelector(_selector).withLabel(SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL);
+        }
+
+        /**
+         * @return {@code true} if any credentials have been obtained from the namespace.
+         */
+        private boolean hasCredentials(String namespace) {
+            return ANY_NAMESPACE.equals(namespace) ? !credentials.isEmpty() : credentials.hasCredentials(namespace);
+        }
+
+        /**
+         * Watch the namespace, receiving the existing secrets as {@code ADDED} events followed by a bookmark marking the end
+         * of the initial events, instead of listing them.
+         * The secrets are converted as they arrive and replace the credentials of the namespace when the bookmark is received.
+         * @return {@code true} if the watch was started, {@code false} if the API server does not support it.
+         * @throws KubernetesClientException if the watch could not be started for any other reason.
+         */
+        private boolean watchList(String namespace, FilterWatchListDeletable<Secret, SecretList, Resource<Secret>> secrets, NamespaceWatcher watcher) {
+            LOG.log(Level.FINER, "streaming secrets in {0}", describe(namespace));
+            watcher.initial = new ShardedCredentialStore();
+            watcher.listStart = System.nanoTime();
+            ListOptionsBuilder lob = new ListOptionsBuilder();
+            lob.withSendInitialEvents(true);
+            lob.withResourceVersionMatch("NotOlderThan");
+            lob.withAllowWatchBookmarks(true);
+            try {
+                long watchStart = System.nanoTime();
+                watcher.watch = secrets.watch(lob.build(), watcher);
+                StartupTimings _startup = startup;
+                if (_startup != null) {
+                    _startup.record(StartupTimings.Phase.WATCH, System.nanoTime() - watchStart);
+                }
+            } catch (KubernetesClientException kex) {
+                if (kex.getCode() != HttpURLConnection.HTTP_BAD_REQUEST && kex.getCode() != HTTP_UNPROCESSABLE_ENTITY) {
+                    throw kex;
+                }
+                watchListUnavailable(namespace, kex);
+                watcher.initial = null;
+                return false;
+            }
+            // API servers that ignore sendInitialEvents never send the bookmark, so fall back to listing if it does not arrive
+            Timer.get().schedule(new SafeTimerTask() {
+                @Override
+                protected void doRun() throws Exception {
+                    synchronized (ClusterWatcher.this) {
+                        if (watcher.initial != null && watcher.isCurrent() && isActive()) {
+                            watchListUnavailable(namespace, null);
+                            startWatching(watcher.client, namespace);
+                        }
+                    }
+                }
+            }, Integer.getInteger(WATCH_LIST_TIMEOUT_SECONDS, 60), TimeUnit.SECONDS);
+            return true;
+        }
+
+        private void watchListUnavailable(String namespace, @CheckForNull KubernetesClientException cause) {
+            watchListUnsupported = true;
+            LOG.log(Level.INFO, "Cluster " + name + " does not support streaming the secrets in " + describe(namespace) + ", listing them instead", cause);
+        }
+
+        /**
+         * The initial events of a {@link #watchList} have been received.
+         */
+        private synchronized void initialEventsReceived(String namespace, NamespaceWatcher watcher, ShardedCredentialStore initial) {
+            if (!watcher.isCurrent()) {
+                // the namespace was restarted while the initial events were being received
+                return;
+            }
+            LOG.log(Level.FINER, "received initial secrets in {0}", describe(namespace));
+            watcher.initial = null;
+            replaceCredentials(namespace, initial);
+            listDurations.put(namespace, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - watcher.listStart));
+            listBreaker.recordSuccess();
+            failedNamespaces.remove(namespace);
+            if (failedNamespaces.isEmpty()) {
+                clearAdminMonitors(getInitAdminMonitorId());
+            }
+        }
+
+        /**
+         * List and convert the secrets, a page at a time if {@link #LIST_PAGE_SIZE} is set.
+         * @param previousResourceVersion the last resourceVersion seen in the namespace, {@code null} if none.
+         * @return the resourceVersion of the list.
+         * @see #LIST_FROM_WATCH_CACHE
+         */
+        private String listSecrets(String namespace, FilterWatchListDeletable<Secret, SecretList, Resource<Secret>> secrets,
+                                   @CheckForNull String previousResourceVersion, ShardedCredentialStore _credentials) {
+            return listPages(namespace, secrets, list(namespace, secrets, firstListOptions(previousResourceVersion)), _credentials);
+        }
+
+        /**
+         * The options of the first LIST request of a namespace.
+         * @param previousResourceVersion the last resourceVersion seen in the namespace, {@code null} if none.
+         * @return the options, {@code null} if neither {@link #LIST_PAGE_SIZE} nor {@link #LIST_FROM_WATCH_CACHE} is set.
+         */
+        @CheckForNull
+        private ListOptions firstListOptions(@CheckForNull String previousResourceVersion) {
+            int pageSize = Integer.getInteger(LIST_PAGE_SIZE, 0);
+            boolean fromWatchCache = Boolean.getBoolean(LIST_FROM_WATCH_CACHE);
+            if (pageSize <= 0 && !fromWatchCache) {
+                return null;
+            }
+            ListOptionsBuilder lob = new ListOptionsBuilder();
+            if (fromWatchCache) {
+                if (previousResourceVersion == null) {
+                    lob.withResourceVersion("0");
+                } else {
+                    lob.withResourceVersion(previousResourceVersion);
+                    lob.withResourceVersionMatch("NotOlderThan");
+                }
+            }
+            if (pageSize > 0) {
+                lob.withLimit((long) pageSize);
+            }
+            return lob.build();
+        }
+
+        /**
+         * The options of the LIST request of the page following a continue token.
+         * The following pages are read at the resourceVersion of the first, which the continue token carries.
+         */
+        private ListOptions nextPageOptions(String continueToken) {
+            ListOptionsBuilder lob = new ListOptionsBuilder();
+            lob.withLimit((long) Integer.getInteger(LIST_PAGE_SIZE, 0));
+            lob.withContinue(continueToken);
+            return lob.build();
+        }
+
+        /**
+         * Convert a page of secrets, and then list and convert the following pages.
+         * Only a page of secrets is held at a time.
+         * @return the resourceVersion of the list.
+         */
+        private String listPages(String namespace, FilterWatchListDeletable<Secret, SecretList, Resource<Secret>> secrets,
+                                 SecretList page, ShardedCredentialStore _credentials) {
+            addSecrets(namespace, page.getItems(), _credentials);
+            String continueToken = page.getMetadata().getContinue();
+            while (continueToken != null && !continueToken.isEmpty()) {
+                page = list(namespace, secrets, nextPageOptions(continueToken));
+                addSecrets(namespace, page.getItems(), _credentials);
+                continueToken = page.getMetadata().getContinue();
+            }
+            return page.getMetadata().getResourceVersion();
+        }
+
+        /**
+         * Make a single LIST request.
+         * @param options the options of the request, {@code null} for none.
+         */
+        private SecretList list(String namespace, FilterWatchListDeletable<Secret, SecretList, Resource<Secret>> secrets, @CheckForNull ListOptions options) {
+            try (ProviderTracing.Span span = tracing.start("KubernetesCredentialProvider.list")
+                    .attribute(ProviderTracing.CLUSTER, name).attribute(ProviderTracing.NAMESPACE, namespace)) {
+                try {
+                    SecretList list = options == null ? secrets.list() : secrets.list(options);
+                    span.attribute(ProviderTracing.SIZE, list.getItems().size());
+                    return list;
+                } catch (KubernetesClientException kex) {
+                    span.error(kex);
+                    throw kex;
+                }
+            }
+        }
+
+        /**
+         * Make a single LIST request for the metadata of the secrets.
+         * @param options the options of the request, {@code null} for none.
+         */
+        private SecretMetadataList listMetadata(KubernetesClient _client, String namespace, String labelSelector, @CheckForNull ListOptions options) {
+            try (ProviderTracing.Span span = tracing.start("KubernetesCredentialProvider.list")
+                    .attribute(ProviderTracing.CLUSTER, name).attribute(ProviderTracing.NAMESPACE, namespace)) {
+                try {
+                    SecretMetadataList metadata = SecretMetadataList.list(_client, ANY_NAMESPACE.equals(namespace) ? null : namespace, labelSelector, options);
+                    span.attribute(ProviderTracing.SIZE, metadata.getFullList() == null ? metadata.getItems().size() : metadata.getFullList().getItems().size());
+                    return metadata;
+                } catch (KubernetesClientException kex) {
+                    span.error(kex);
+                    throw kex;
+                }
+            }
+        }
+
+        /**
+         * Convert the secrets, grouping them by namespace when watching all namespaces.
+         */
+        private void addSecrets(String namespace, List<Secret> secrets, ShardedCredentialStore _credentials) {
+            long start = System.nanoTime();
+            if (ANY_NAMESPACE.equals(namespace)) {
+                Map<String, List<Secret>> secretsByNamespace = new HashMap<>();
+                for (Secret secret : secrets) {
+                    String secretNamespace = secret.getMetadata().getNamespace();
+                    if (isAllowedNamespace(secretNamespace)) {
+                        secretsByNamespace.computeIfAbsent(secretNamespace, k -> new ArrayList<>()).add(secret);
+                    }
+                }
+                secretsByNamespace.forEach((secretNamespace, namespaceSecrets) -> KubernetesCredentialProvider.this.addSecrets(secretNamespace, namespaceSecrets, _credentials, conversionFailures));
+            } else {
+                KubernetesCredentialProvider.this.addSecrets(namespace, secrets, _credentials, conversionFailures);
+            }
+            StartupTimings _startup = startup;
+            if (_startup != null) {
+                _startup.converted(secrets, System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * List only the metadata of the secrets, and then get the secrets that are new or whose resourceVersion has changed
+         * since they were last converted. The credentials of unchanged secrets are reused as is.
+         * If most of the secrets have changed they are all listed in a single request instead of getting them one by one.
+         * @return the resourceVersion of the list.
+         */
+        private String listChangedSecrets(KubernetesClient _client, String namespace,
+                                          FilterWatchListDeletable<Secret, SecretList, Resource<Secret>> secrets,
+                                          @CheckForNull String previousResourceVersion, ShardedCredentialStore _credentials) {
+            String labelSelector = SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL;
+            String expression = LabelSelectorExpressions.format(selector);
+            if (!expression.isEmpty()) {
+                labelSelector += "," + expression;
+            }
+            // the metadata is listed with the same paging and watch cache options as the secrets
+            SecretMetadataList metadata = listMetadata(_client, namespace, labelSelector, firstListOptions(previousResourceVersion));
+            SecretList fullList = metadata.getFullList();
+            if (fullList != null) {
+                LOG.log(Level.FINE, "API server does not support listing secret metadata, using the full secrets of {0}", describe(namespace));
+                return listPages(namespace, secrets, fullList, _credentials);
+            }
+            String continueToken = metadata.getContinue();
+            while (continueToken != null && !continueToken.isEmpty()) {
+                metadata = metadata.withNextPage(listMetadata(_client, namespace, labelSelector, nextPageOptions(continueToken)));
+                continueToken = metadata.getContinue();
+            }
+            List<SecretMetadataList.Item> changed = new ArrayList<>();
+            for (SecretMetadataList.Item item : metadata.getItems()) {
+                String itemNamespace = item.getNamespace() == null ? namespace : item.getNamespace();
+                if (ANY_NAMESPACE.equals(namespace) && !isAllowedNamespace(itemNamespace)) {
+                    continue;
+                }
+                KubernetesSourcedCredential existing = credentials.get(itemNamespace, item.getName());
+                if (existing != null && item.getResourceVersion() != null && item.getResourceVersion().equals(existing.getResourceVersion())) {
+                    _credentials.put(itemNamespace, item.getName(), existing);
+                } else if (conversionFailures.isKnownFailure(itemNamespace, item.getName(), item.getResourceVersion())) {
+                    LOG.log(Level.FINEST, "Secret {0} previously failed to convert and has not changed, not fetching", item.getName());
+                } else {
+                    changed.add(item);
+                }
+            }
+            LOG.log(Level.FINER, "{0} of {1} secrets in {2} have changed", new Object[] {changed.size(), metadata.getItems().size(), describe(namespace)});
+            if (changed.size() > 1 && changed.size() * 2 > metadata.getItems().size()) {
+                // cheaper to fetch everything in one request than one request per secret, which replaces the reused credentials
+                _credentials.clear();
+                return listSecrets(namespace, secrets, previousResourceVersion, _credentials);
+            }
+            List<Secret> changedSecrets = new ArrayList<>(changed.size());
+            for (SecretMetadataList.Item item : changed) {
+                String itemNamespace = item.getNamespace() == null ? namespace : item.getNamespace();
+                Secret secret = _client.secrets().inNamespace(itemNamespace).withName(item.getName()).get();
+                // the secret may have been deleted since it was listed, in which case the watch will catch up
+                if (secret != null) {
+                    changedSecrets.add(secret);
+                }
+            }
+            addSecrets(namespace, changedSecrets, _credentials);
+            return metadata.getResourceVersion();
+        }
+
+        /**
+         * Stop watching the namespace and forget about all the credentials obtained from it.
+         */
+        private synchronized void stopWatching(String namespace) {
+            LOG.log(Level.INFO, "Stopping watching secrets in {0}", describe(namespace));
+            NamespaceWatcher watcher = namespaceWatchers.remove(namespace);
+            if (watcher != null) {
+                watcher.close();
+            }
+            failedNamespaces.remove(namespace);
+            listDurations.remove(namespace);
+            conversionFailures.removeNamespace(namespace);
+            if (ANY_NAMESPACE.equals(namespace)) {
+                credentials.replaceAll(new ShardedCredentialStore());
+            } else {
+                credentials.removeShard(namespace);
+            }
+        }
+
+        /**
+         * Stop watching all the namespaces of the cluster, closing the client of an additional cluster.
+         */
+        synchronized void stop() {
+            for (String namespace : namespaceWatchers.keySet()) {
+                NamespaceWatcher watcher = namespaceWatchers.remove(namespace);
+                if (watcher != null) {
+                    watcher.close();
+                }
+            }
+            failedNamespaces.clear();
+            if (remoteClient != null) {
+                remoteClient.close();
+                remoteClient = null;
+            }
+        }
+
+        /**
+         * List all the namespaces of the cluster again, including those that failed, and restart their watches.
+         * @return the number of namespaces relisted.
+         */
+        synchronized int relist() {
+            if (!isActive()) {
+                return 0;
+            }
+            Set<String> namespaces = new HashSet<>(namespaceWatchers.keySet());
+            namespaces.addAll(failedNamespaces);
+            KubernetesClient _client = getClient();
+            for (String namespace : namespaces) {
+                startWatching(_client, namespace);
+            }
+            return namespaces.size();
+        }
+
+        /**
+         * Close the watches and the client of the cluster, and start again with a new client.
+         * The credentials are kept until the namespaces have been listed again.
+         */
+        synchronized void reconnect() {
+            reconnectAttempts.increment();
+            restart();
+        }
+
+        /**
+         * Close the watches and the client of the cluster, and start again with a new client unless the cluster has been
+         * removed (or the provider stopped) in the meantime.
+         * The credentials are kept until the namespaces have been listed again.
+         */
+        synchronized void restart() {
+            stop();
+            if (source == null) {
+                closeClient();
+            }
+            if (isActive()) {
+                start();
+            }
+        }
+
+        /**
+         * Describe the state of the watch of each namespace, keyed by {@code cluster/namespace}.
+         */
+        void describeWatches(Map<String, String> states, Map<String, String> resourceVersions, Map<String, Long> durations) {
+            Set<String> namespaces = new TreeSet<>(namespaceWatchers.keySet());
+            namespaces.addAll(failedNamespaces);
+            for (String namespace : namespaces) {
+                String key = name + '/' + namespace;
+                NamespaceWatcher watcher = namespaceWatchers.get(namespace);
+                String state;
+                if (failedNamespaces.contains(namespace)) {
+                    state = "FAILED";
+                } else if (watcher == null || watcher.watch == null) {
+                    state = "NOT_WATCHING";
+                } else if (watcher.initial != null) {
+                    state = "RECEIVING_INITIAL_EVENTS";
+                } else {
+                    state = "WATCHING";
+                }
+                states.put(key, state);
+                String _resourceVersion = watcher == null ? null : watcher.resourceVersion;
+                if (_resourceVersion != null) {
+                    resourceVersions.put(key, _resourceVersion);
+                }
+                Long duration = listDurations.get(namespace);
+                if (duration != null) {
+                    durations.put(key, duration);
+                }
+            }
+        }
+
+        /**
+         * Replace all the credentials obtained from the namespace with the given credentials.
+         * @param namespace the namespace the credentials were obtained from, or {@link #ANY_NAMESPACE} to replace all credentials.
+         * @param namespaceCredentials the credentials obtained from the namespace.
+         */
+        private void replaceCredentials(String namespace, ShardedCredentialStore namespaceCredentials) {
+            if (ANY_NAMESPACE.equals(namespace)) {
+                credentials.replaceAll(namespaceCredentials);
+                metrics.onSync(name, namespace, namespaceCredentials.size());
+            } else {
+                credentials.replaceShard(namespace, namespaceCredentials);
+                metrics.onSync(name, namespace, namespaceCredentials.getCredentials(namespace).size());
+            }
+        }
+
+        void eventReceived(String namespace, Action action, Secret secret) {
+            eventReceived(credentials, namespace, action, secret);
+        }
+
+        /**
+         * Apply a watch event to a store of credentials.
+         * @param store the credentials of the cluster, or the credentials being received as the initial events of a {@link #watchList}.
+         */
+        private void eventReceived(ShardedCredentialStore store, String namespace, Action action, Secret secret) {
+            String credentialId = SecretUtils.getCredentialId(secret);
+            if ((action == Action.ADDED || action == Action.MODIFIED) && !isSelected(secret)) {
+                // the API server has already filtered the watch, but be defensive against anything that was not
+                LOG.log(Level.FINE, "Secret {0} does not match the label selector, ignoring", credentialId);
+                store.remove(namespace, credentialId);
+                return;
+            }
+            switch (action) {
+                case ADDED: {
+                    LOG.log(Level.FINE, "Secret Added - {0}", credentialId);
+                    addSecret(namespace, secret, store, conversionFailures);
+                    recordPropagationLag(store, namespace, secret);
+                    break;
+                }
+                case MODIFIED: {
+                    LOG.log(Level.FINE, "Secret Modified - {0}", credentialId);
+                    addSecret(namespace, secret, store, conversionFailures);
+                    recordPropagationLag(store, namespace, secret);
+                    break;
+                }
+                case DELETED: {
+                    LOG.log(Level.FINE, "Secret Deleted - {0}", credentialId);
+                    store.remove(namespace, credentialId);
+                    conversionFailures.remove(namespace, secret.getMetadata().getName());
+                    break;
+                }
+                case ERROR: {
+                    // XXX  ????
+                    LOG.log(Level.WARNING, "Action received of type Error. {0}", secret);
+                    break;
+                }
+                case BOOKMARK: {
+                    // TODO handle bookmarks for efficient reconnect
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Record how long an update of a secret took to become visible as a credential.
+         * Only updates received by the watch are measured, a relist may pick up an update long after it was made.
+         */
+        private void recordPropagationLag(ShardedCredentialStore store, String namespace, Secret secret) {
+            PropagationLagMonitor monitor = lagMonitor;
+            if (store != credentials || (monitor == null && metrics == KubernetesCredentialProviderMetrics.NOOP)) {
+                return;
+            }
+            KubernetesSourcedCredential credential = store.get(namespace, SecretUtils.getCredentialId(secret));
+            if (credential == null || !Objects.equals(credential.getResourceVersion(), secret.getMetadata().getResourceVersion())) {
+                // the secret could not be converted, so the update is not visible
+                return;
+            }
+            Long updatedAt = PropagationLagMonitor.getUpdatedAt(secret);
+            if (updatedAt == null) {
+                return;
+            }
+            long lag = Math.max(0, System.currentTimeMillis() - updatedAt);
+            if (monitor != null) {
+                monitor.record(lag);
+            }
+            metrics.onPropagationLag(name, namespace, getCredentialType(secret), lag);
+        }
+
+        /**
+         * Schedule a future task to attempt to start the cluster again.
+         * @see Timer
+         */
+        private void reconnectLater() {
+            LOG.log(Level.INFO, "Attempting to reconnect to cluster {0} in {1} mins", new Object[] {name, reconnectClientDelayMins});
+            Timer.get().schedule(new SafeTimerTask() {
+                @Override
+                protected void doRun() throws Exception {
+                    if (isActive()) {
+                        reconnectAttempts.increment();
+                        start();
+                    }
+                }
+            }, reconnectClientDelayMins, TimeUnit.MINUTES);
+        }
+
+        /**
+         * Schedule a future task to attempt to watch the namespace again.
+         * @see Timer
+         */
+        private void reconnectLater(String namespace) {
+            LOG.log(Level.INFO, "Attempting to reconnect to {0} in {1} mins", new Object[] {describe(namespace), reconnectClientDelayMins});
+            reconnectLater(namespace, reconnectClientDelayMins, TimeUnit.MINUTES);
+        }
+
+        private void reconnectLater(String namespace, long delay, TimeUnit unit) {
+            Timer.get().schedule(new SafeTimerTask() {
+                @Override
+                protected void doRun() throws Exception {
+                    synchronized (ClusterWatcher.this) {
+                        // the namespace may have been removed from the configuration (or the provider stopped) in the meantime
+                        if (isActive() && failedNamespaces.contains(namespace)) {
+                            reconnectAttempts.increment();
+                            startWatching(getClient(), namespace);
+                        }
+                    }
+                }
+            }, delay, unit);
+        }
+
+        /**
+         * List the namespace of a watcher once its turn comes, rather than holding up the caller (which may be a watch that has just closed).
+         * The credentials obtained so far are kept until then.
+         */
+        private void listLater(NamespaceWatcher watcher, @CheckForNull String previousResourceVersion, long delayNanos) {
+            // a watcher that is replaced before it lists hands its resourceVersion on to the next one
+            watcher.resourceVersion = previousResourceVersion;
+            // a LIST throttled during a startup is still part of it
+            StartupTimings _startup = startup;
+            if (_startup != null) {
+                _startup.listDeferred();
+            }
+            Timer.get().schedule(new SafeTimerTask() {
+                @Override
+                protected void doRun() throws Exception {
+                    try {
+                        synchronized (ClusterWatcher.this) {
+                            // the namespace may have been restarted or removed from the configuration (or the provider stopped) in the meantime
+                            if (isActive() && watcher.isCurrent()) {
+                                StartupTimings previous = startup;
+                                startup = _startup;
+                                try {
+                                    listAndWatch(watcher, previousResourceVersion);
+                                } finally {
+                                    startup = previous;
+                                }
+                            }
+                        }
+                    } finally {
+                        if (_startup != null && _startup.deferredListDone()) {
+                            LOG.log(Level.FINE, "Startup timings: {0}", _startup);
+                        }
+                    }
+                }
+            }, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * The list+watch of the secrets of a single namespace.
+         */
+        private final class NamespaceWatcher implements Watcher<Secret> {
+
+            private final KubernetesClient client;
+            private final String namespace;
+
+            @CheckForNull
+            private volatile Watch watch;
+
+            /** The credentials received so far from the initial events of a {@link #watchList}, {@code null} once they have all been received */
+            @CheckForNull
+            private volatile ShardedCredentialStore initial;
+
+            /** The last resourceVersion seen by the watch, from which it can be resumed without listing */
+            @CheckForNull
+            private volatile String resourceVersion;
+
+            /** When the {@link #watchList} of the namespace was started, as {@link System#nanoTime()} */
+            private volatile long listStart;
+
+            NamespaceWatcher(KubernetesClient client, String namespace) {
+                this.client = client;
+                this.namespace = namespace;
+            }
+
+            /**
+             * @return {@code true} iff this is the current watcher of its namespace, events from a replaced watcher are stale.
+             */
+            private boolean isCurrent() {
+                return namespaceWatchers.get(namespace) == this;
+            }
+
+            @Override
+            public void eventReceived(Action action, Secret secret) {
+                if (!isCurrent()) {
+                    return;
+                }
+                metrics.onWatchEvent(name, namespace, action);
+                long start = System.nanoTime();
+                Map<String, String> labels = secret.getMetadata() == null ? null : secret.getMetadata().getLabels();
+                try (ProviderTracing.Span ignored = tracing.start("KubernetesCredentialProvider.eventReceived")
+                        .attribute(ProviderTracing.CLUSTER, name).attribute(ProviderTracing.NAMESPACE, namespace)
+                        .attribute(ProviderTracing.ACTION, action.name())
+                        .attribute(ProviderTracing.TYPE, labels == null ? null : labels.get(SecretUtils.JENKINS_IO_CREDENTIALS_TYPE_LABEL))) {
+                    dispatch(action, secret);
+                } finally {
+                    eventLog.record(name, namespace, action.name(), secret.getMetadata() == null ? null : secret.getMetadata().getName(),
+                            secret.getMetadata() == null ? null : secret.getMetadata().getResourceVersion(), System.nanoTime() - start);
+                }
+            }
+
+            private void dispatch(Action action, Secret secret) {
+                String _resourceVersion = secret.getMetadata() == null ? null : secret.getMetadata().getResourceVersion();
+                if (_resourceVersion != null) {
+                    resourceVersion = _resourceVersion;
+                }
+                ShardedCredentialStore _initial = initial;
+                if (action == Action.BOOKMARK) {
+                    if (_initial != null && isInitialEventsEnd(secret)) {
+                        initialEventsReceived(namespace, this, _initial);
+                    }
+                    return;
+                }
+                ShardedCredentialStore store = _initial == null ? credentials : _initial;
+                if (ANY_NAMESPACE.equals(namespace)) {
+                    String secretNamespace = secret.getMetadata().getNamespace();
+                    if (!isAllowedNamespace(secretNamespace)) {
+                        LOG.log(Level.FINEST, "Ignoring secret {0} from namespace {1}", new Object[] {secret.getMetadata().getName(), secretNamespace});
+                        return;
+                    }
+                    ClusterWatcher.this.eventReceived(store, secretNamespace, action, secret);
+                } else {
+                    ClusterWatcher.this.eventReceived(store, namespace, action, secret);
+                }
+            }
+
+            @Override
+            public void onClose(WatcherException cause) {
+                if (cause != null && isCurrent()) {
+                    LOG.log(Level.WARNING, "Secrets watch for " + describe(namespace) + " stopped unexpectedly", cause);
+                    metrics.onWatchReconnect(name, namespace);
+                    reconnectAttempts.increment();
+                    eventLog.record(name, namespace, WatchEventLog.RECONNECT, null, resourceVersion, 0);
+                    String _resourceVersion = resourceVersion;
+                    // a watch that had not received all its initial events can not be resumed, some secrets would be missing
+                    if (listBreaker.isOpen() && _resourceVersion != null && initial == null && !cause.isHttpGone()) {
+                        LOG.log(Level.INFO, "Resuming secrets watcher for {0} without listing", describe(namespace));
+                        resumeWatching(client, namespace, _resourceVersion);
+                    } else {
+                        LOG.log(Level.INFO, "Restating secrets watcher for {0}", describe(namespace));
+                        startWatching(client, namespace);
+                    }
+                } else {
+                    LOG.log(Level.INFO, "Secrets watcher for {0} stopped", describe(namespace));
+                }
+            }
+
+            void close() {
+                Watch _watch = watch;
+                if (_watch != null) {
+                    _watch.close();
+                    watch = null;
+                }
+            }
+        }
+    }
+
     @Override
     public CredentialsStore getStore(ModelObject object) {
         if(object instanceof ItemGroup<?>) {
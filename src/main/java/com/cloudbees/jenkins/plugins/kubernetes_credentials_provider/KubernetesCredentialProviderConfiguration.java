@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.Util;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import jenkins.model.GlobalConfiguration;
+import net.sf.json.JSONObject;
+import org.jenkinsci.Symbol;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.StaplerRequest2;
+
+/**
+ * Global configuration of the {@link KubernetesCredentialProvider}.
+ */
+@Extension
+@Symbol("kubernetesCredentialsProvider")
+public class KubernetesCredentialProviderConfiguration extends GlobalConfiguration {
+
+    /**
+     * Comma separated list of namespaces to watch, {@code null} to fall back to the system property or client namespace.
+     * When {@link #clusterScoped} this is the list of namespaces secrets are accepted from, {@code null} for all namespaces.
+     */
+    @CheckForNull
+    private String namespaces;
+
+    /** Use a single cluster scoped watch filtered by {@link #namespaces} rather than a watch per namespace */
+    private boolean clusterScoped;
+
+    /** Additional clusters to obtain credentials from, in order of precedence */
+    @CheckForNull
+    private List<KubernetesClusterSource> clusters;
+
+    /** Tuning of the Kubernetes clients, {@code null} to use the system properties and client defaults */
+    @CheckForNull
+    private KubernetesClientSettings clientSettings;
+
+    /** The client settings the clients of the provider were last created with */
+    @CheckForNull
+    private transient KubernetesClientSettings appliedClientSettings;
+
+    public KubernetesCredentialProviderConfiguration() {
+        load();
+        appliedClientSettings = clientSettings;
+    }
+
+    /**
+     * @return the configuration, or {@code null} if Jenkins is not running.
+     */
+    @CheckForNull
+    static KubernetesCredentialProviderConfiguration get() {
+        return ExtensionList.lookup(KubernetesCredentialProviderConfiguration.class).get(KubernetesCredentialProviderConfiguration.class);
+    }
+
+    @CheckForNull
+    public String getNamespaces() {
+        return namespaces;
+    }
+
+    @DataBoundSetter
+    public void setNamespaces(@CheckForNull String namespaces) {
+        this.namespaces = Util.fixEmptyAndTrim(namespaces);
+    }
+
+    @Override
+    public boolean configure(StaplerRequest2 req, JSONObject json) throws FormException {
+        // nothing is submitted when the last cluster is removed or the client settings are unchecked
+        clusters = null;
+        clientSettings = null;
+        JSONObject settings = json.optJSONObject("clientSettings");
+        if (settings != null) {
+            KubernetesClientSettings.removeDefaults(settings);
+        }
+        req.bindJSON(this, json);
+        save();
+        // the setters only record the values so that the watches are reconciled once with the whole configuration
+        updateProvider();
+        return true;
+    }
+
+    /**
+     * Reconcile the watches with the configuration applied while Jenkins was starting, by Configuration as Code for example.
+     */
+    @Initializer(after = InitMilestone.SYSTEM_CONFIG_ADAPTED, fatal = false)
+    @Restricted(NoExternalUse.class) // only for callbacks from Jenkins
+    public void configurationLoaded() {
+        updateProvider();
+    }
+
+    private void updateProvider() {
+        boolean clientSettingsChanged = !Objects.equals(appliedClientSettings, clientSettings);
+        appliedClientSettings = clientSettings;
+        KubernetesCredentialProvider provider = ExtensionList.lookup(KubernetesCredentialProvider.class).get(KubernetesCredentialProvider.class);
+        if (provider != null) {
+            provider.configurationChanged(clientSettingsChanged);
+        }
+    }
+
+    public boolean isClusterScoped() {
+        return clusterScoped;
+    }
+
+    @DataBoundSetter
+    public void setClusterScoped(boolean clusterScoped) {
+        this.clusterScoped = clusterScoped;
+    }
+
+    @NonNull
+    public List<KubernetesClusterSource> getClusters() {
+        return clusters == null ? Collections.emptyList() : Collections.unmodifiableList(clusters);
+    }
+
+    @DataBoundSetter
+    public void setClusters(@CheckForNull List<KubernetesClusterSource> clusters) {
+        this.clusters = clusters == null ? null : new ArrayList<>(clusters);
+    }
+
+    @CheckForNull
+    public KubernetesClientSettings getClientSettings() {
+        return clientSettings;
+    }
+
+    /**
+     * Set the tuning of the Kubernetes clients, the clients are created again when the configuration is applied.
+     */
+    @DataBoundSetter
+    public void setClientSettings(@CheckForNull KubernetesClientSettings clientSettings) {
+        this.clientSettings = clientSettings;
+    }
+
+    /**
+     * @return the configured namespaces, empty if none have been configured.
+     */
+    @NonNull
+    List<String> getNamespaceList() {
+        return parseNamespaces(namespaces);
+    }
+
+    /**
+     * Parse a comma separated list of namespaces, ignoring whitespace, empty entries and duplicates.
+     * @param namespaces the list to parse, may be {@code null}.
+     * @return the namespaces in the order given.
+     */
+    @NonNull
+    static List<String> parseNamespaces(@CheckForNull String namespaces) {
+        if (namespaces == null || namespaces.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        for (String namespace : namespaces.split(",")) {
+            String trimmed = namespace.trim();
+            if (!trimmed.isEmpty() && !result.contains(trimmed)) {
+                result.add(trimmed);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
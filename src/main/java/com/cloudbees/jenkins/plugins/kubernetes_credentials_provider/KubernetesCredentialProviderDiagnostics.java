@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.Collections;
+import java.util.List;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.ManagementLink;
+
+/**
+ * A page under <em>Manage Jenkins</em> showing how the provider has been performing, to diagnose slow startups without
+ * raising the log levels.
+ */
+@Extension
+public class KubernetesCredentialProviderDiagnostics extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-kubernetes plugin-kubernetes-credentials-provider";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Kubernetes Credentials Provider";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Diagnostics of the credentials obtained from Kubernetes secrets.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "kubernetes-credentials-provider";
+    }
+
+    @NonNull
+    @Override
+    public Category getCategory() {
+        return Category.TROUBLESHOOTING;
+    }
+
+    /**
+     * @return the provider, or {@code null} if Jenkins is not running.
+     */
+    @CheckForNull
+    static KubernetesCredentialProvider getProvider() {
+        return ExtensionList.lookup(KubernetesCredentialProvider.class).get(KubernetesCredentialProvider.class);
+    }
+
+    /**
+     * @return the timings of the most recent startups of each cluster, oldest first.
+     */
+    public List<StartupTimings> getStartupTimings() {
+        KubernetesCredentialProvider provider = getProvider();
+        return provider == null ? Collections.emptyList() : provider.getStartupTimings();
+    }
+
+    /**
+     * @return the most recent watch events, the most recent first.
+     */
+    public List<WatchEventLog.Entry> getRecentWatchEvents() {
+        KubernetesCredentialProvider provider = getProvider();
+        return provider == null ? Collections.emptyList() : provider.getRecentWatchEvents();
+    }
+
+    public StartupTimings.Phase[] getPhases() {
+        return StartupTimings.Phase.values();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The management interface of the {@link KubernetesCredentialProvider}, registered with the platform MBean server as
+ * {@value KubernetesCredentialProviderManagement#OBJECT_NAME}.
+ * Maps of namespaces are keyed by {@code cluster/namespace}, the local cluster being named {@code local}.
+ * <em>Note</em>: API may be subject to change.
+ */
+public interface KubernetesCredentialProviderMXBean {
+
+    /**
+     * @return the number of credentials, including any shadowed by a credential with the same ID in an earlier cluster.
+     */
+    int getCredentialCount();
+
+    /**
+     * @return the number of credentials of each credentials type.
+     */
+    Map<String, Integer> getCredentialCountsByType();
+
+    /**
+     * @return the number of credentials obtained from each namespace.
+     */
+    Map<String, Integer> getCredentialCountsByNamespace();
+
+    /**
+     * @return the estimated heap retained by the credentials, in bytes.
+     */
+    long getEstimatedCredentialBytes();
+
+    /**
+     * @return the estimated heap retained by the credentials of each credentials type, in bytes.
+     */
+    Map<String, Long> getEstimatedCredentialBytesByType();
+
+    /**
+     * @return the estimated heap retained by the credentials of each namespace, in bytes.
+     */
+    Map<String, Long> getEstimatedCredentialBytesByNamespace();
+
+    /**
+     * @return the state of the watch of each namespace, one of {@code WATCHING}, {@code RECEIVING_INITIAL_EVENTS},
+     *         {@code NOT_WATCHING} or {@code FAILED}.
+     */
+    Map<String, String> getWatchStates();
+
+    /**
+     * @return the last resourceVersion seen by the watch of each namespace.
+     */
+    Map<String, String> getResourceVersions();
+
+    /**
+     * @return how long the last list of each namespace took, in milliseconds.
+     */
+    Map<String, Long> getLastListDurationsMillis();
+
+    /**
+     * @return the number of times the watches of each cluster have been restarted or retried.
+     */
+    Map<String, Long> getReconnectAttempts();
+
+    /**
+     * @return the number of requests made to the API servers, keyed by {@code cluster/verb} where the verb is one of
+     *         {@code LIST}, {@code WATCH}, {@code GET} or {@code OTHER}.
+     */
+    Map<String, Long> getApiRequests();
+
+    /**
+     * @return the bytes of the responses received from the API servers, keyed by {@code cluster/verb}.
+     *         The events streamed by WebSocket watches are not included.
+     */
+    Map<String, Long> getApiResponseBytes();
+
+    /**
+     * @return the sampled credential lookups, keyed by {@code type:<class>}, {@code context:<full name>} and
+     *         {@code caller:<method>}, empty unless lookup profiling is enabled.
+     */
+    Map<String, Long> getSampledLookups();
+
+    /**
+     * @return the 99th percentile latency of the sampled credential lookups in microseconds, keyed by requested type.
+     */
+    Map<String, Long> getLookupLatencyMicros();
+
+    /**
+     * List the secrets of all the namespaces again, replacing the credentials, and restart the watches.
+     * @return a summary of what was done.
+     */
+    String relist();
+
+    /**
+     * Recreate the Kubernetes clients and list and watch all the namespaces again.
+     * @return a summary of what was done.
+     */
+    String reconnect();
+
+    /**
+     * @return the secrets that failed to convert and will not be converted again until they are modified.
+     */
+    List<String> dumpConversionFailures();
+}
@@ -0,0 +1,228 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+/**
+ * Exposes the state of a {@link KubernetesCredentialProvider} over JMX so that a slow or stale controller can be
+ * diagnosed without restarting it or raising the log levels.
+ * Registration can be disabled with the {@link #JMX} system property.
+ */
+final class KubernetesCredentialProviderManagement implements KubernetesCredentialProviderMXBean {
+
+    private static final Logger LOG = Logger.getLogger(KubernetesCredentialProviderManagement.class.getName());
+
+    /** Set to {@code false} to not register the MBean */
+    static final String JMX = KubernetesCredentialProvider.class.getName() + ".jmx";
+
+    static final String OBJECT_NAME = "com.cloudbees.jenkins.plugins.kubernetes_credentials_provider:type=KubernetesCredentialProvider";
+
+    /** The currently registered MBean, {@code null} if none */
+    @CheckForNull
+    private static KubernetesCredentialProviderManagement registered;
+
+    private final KubernetesCredentialProvider provider;
+
+    KubernetesCredentialProviderManagement(KubernetesCredentialProvider provider) {
+        this.provider = provider;
+    }
+
+    /**
+     * Register the MBean of the provider, replacing the MBean of any other provider.
+     */
+    static synchronized void register(KubernetesCredentialProvider provider) {
+        if (!Boolean.parseBoolean(System.getProperty(JMX, "true")) || (registered != null && registered.provider == provider)) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            KubernetesCredentialProviderManagement management = new KubernetesCredentialProviderManagement(provider);
+            server.registerMBean(management, name);
+            registered = management;
+        } catch (JMException | SecurityException e) {
+            LOG.log(Level.WARNING, "Failed to register the MBean of the Kubernetes credentials provider", e);
+        }
+    }
+
+    /**
+     * Unregister the MBean of the provider, if it is registered.
+     */
+    static synchronized void unregister(KubernetesCredentialProvider provider) {
+        // do not unregister the MBean of a provider that has replaced this one
+        if (registered == null || registered.provider != provider) {
+            return;
+        }
+        registered = null;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+        } catch (InstanceNotFoundException e) {
+            // already unregistered
+        } catch (JMException | SecurityException e) {
+            LOG.log(Level.WARNING, "Failed to unregister the MBean of the Kubernetes credentials provider", e);
+        }
+    }
+
+    @Override
+    public int getCredentialCount() {
+        return provider.getCredentialCount();
+    }
+
+    @Override
+    public Map<String, Integer> getCredentialCountsByType() {
+        return provider.getCredentialCountsByType();
+    }
+
+    @Override
+    public Map<String, Integer> getCredentialCountsByNamespace() {
+        return provider.getCredentialCountsByNamespace();
+    }
+
+    @Override
+    public long getEstimatedCredentialBytes() {
+        return provider.getEstimatedCredentialBytes();
+    }
+
+    @Override
+    public Map<String, Long> getEstimatedCredentialBytesByType() {
+        return provider.getEstimatedCredentialBytesByType();
+    }
+
+    @Override
+    public Map<String, Long> getEstimatedCredentialBytesByNamespace() {
+        return provider.getEstimatedCredentialBytesByNamespace();
+    }
+
+    @Override
+    public Map<String, String> getWatchStates() {
+        Map<String, String> states = new TreeMap<>();
+        provider.describeWatches(states, new TreeMap<>(), new TreeMap<>());
+        return states;
+    }
+
+    @Override
+    public Map<String, String> getResourceVersions() {
+        Map<String, String> resourceVersions = new TreeMap<>();
+        provider.describeWatches(new TreeMap<>(), resourceVersions, new TreeMap<>());
+        return resourceVersions;
+    }
+
+    @Override
+    public Map<String, Long> getLastListDurationsMillis() {
+        Map<String, Long> durations = new TreeMap<>();
+        provider.describeWatches(new TreeMap<>(), new TreeMap<>(), durations);
+        return durations;
+    }
+
+    @Override
+    public Map<String, Long> getReconnectAttempts() {
+        return provider.getReconnectAttempts();
+    }
+
+    @Override
+    public Map<String, Long> getApiRequests() {
+        Map<String, Long> requests = new TreeMap<>();
+        provider.getApiTraffic().forEach((cluster, traffic) -> {
+            for (ApiTraffic.Verb verb : ApiTraffic.Verb.values()) {
+                requests.put(cluster + "/" + verb, traffic.getRequests(verb));
+            }
+        });
+        return requests;
+    }
+
+    @Override
+    public Map<String, Long> getApiResponseBytes() {
+        Map<String, Long> bytes = new TreeMap<>();
+        provider.getApiTraffic().forEach((cluster, traffic) -> {
+            for (ApiTraffic.Verb verb : ApiTraffic.Verb.values()) {
+                bytes.put(cluster + "/" + verb, traffic.getResponseBytes(verb));
+            }
+        });
+        return bytes;
+    }
+
+    @Override
+    public Map<String, Long> getSampledLookups() {
+        Map<String, Long> lookups = new TreeMap<>();
+        CredentialLookupProfiler profiler = provider.getLookupProfiler();
+        if (profiler != null) {
+            profiler.getSampledCountsByType().forEach((type, count) -> lookups.put("type:" + type, count));
+            profiler.getSampledCountsByItemGroup().forEach((context, count) -> lookups.put("context:" + context, count));
+            profiler.getSampledCountsByCaller().forEach((caller, count) -> lookups.put("caller:" + caller, count));
+        }
+        return lookups;
+    }
+
+    @Override
+    public Map<String, Long> getLookupLatencyMicros() {
+        Map<String, Long> latencies = new TreeMap<>();
+        CredentialLookupProfiler profiler = provider.getLookupProfiler();
+        if (profiler != null) {
+            profiler.getLatencyNanosByType(99).forEach((type, nanos) -> latencies.put(type, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        }
+        return latencies;
+    }
+
+    @Override
+    public String relist() {
+        LOG.log(Level.INFO, "Relisting secrets as requested over JMX");
+        return "Relisted " + provider.relist() + " namespace(s)";
+    }
+
+    @Override
+    public String reconnect() {
+        LOG.log(Level.INFO, "Reconnecting to Kubernetes as requested over JMX");
+        provider.reconnect();
+        return "Reconnected";
+    }
+
+    @Override
+    public List<String> dumpConversionFailures() {
+        List<String> dump = new ArrayList<>();
+        provider.getConversionFailures().forEach((cluster, failures) -> {
+            for (ConversionFailureCache.Failure failure : failures) {
+                dump.add(cluster + "/" + failure);
+            }
+        });
+        return dump;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import io.fabric8.kubernetes.client.Watcher;
+
+/**
+ * Receives the metrics of the {@link KubernetesCredentialProvider}, for publishing them to a metrics system.
+ * The methods are called on the paths that list, watch and convert secrets so implementations must be cheap and must
+ * not block. When no implementation is {@link #isEnabled() enabled} a no-op implementation is used.
+ * <em>Note</em>: API may be subject to change.
+ */
+public abstract class KubernetesCredentialProviderMetrics implements ExtensionPoint {
+
+    /** Used when no implementation is enabled */
+    static final KubernetesCredentialProviderMetrics NOOP = new KubernetesCredentialProviderMetrics() {
+    };
+
+    /**
+     * @return {@code true} if this implementation should receive metrics.
+     */
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * A watch event has been received.
+     * @param cluster the name of the cluster the event was received from.
+     * @param namespace the namespace of the watch.
+     * @param action the action of the event.
+     */
+    public void onWatchEvent(String cluster, String namespace, Watcher.Action action) {
+    }
+
+    /**
+     * A watch closed unexpectedly and is being restarted.
+     * @param cluster the name of the cluster.
+     * @param namespace the namespace of the watch.
+     */
+    public void onWatchReconnect(String cluster, String namespace) {
+    }
+
+    /**
+     * A batch of secrets of the same type has been converted.
+     * Every secret handed to a converter is counted once, whether or not its conversion succeeded, and each failure is
+     * also reported to {@link #onConversionFailure}.
+     * @param type the credentials type of the secrets.
+     * @param count the number of secrets whose conversion was attempted, {@code 1} when a secret is converted on its own.
+     * @param durationNanos the time taken to convert the whole batch, divide by {@code count} for the time per secret.
+     */
+    public void onConversion(String type, int count, long durationNanos) {
+    }
+
+    /**
+     * A secret could not be converted.
+     * @param type the credentials type of the secret.
+     * @param namespace the namespace of the secret.
+     */
+    public void onConversionFailure(String type, String namespace) {
+    }
+
+    /**
+     * The credentials of a namespace have been replaced with those of a full list of its secrets.
+     * @param cluster the name of the cluster.
+     * @param namespace the namespace, or {@code *} when all namespaces are watched together.
+     * @param credentials the number of credentials obtained.
+     */
+    public void onSync(String cluster, String namespace, int credentials) {
+    }
+
+    /**
+     * An update of a secret received by a watch has become visible as a credential.
+     * @param cluster the name of the cluster.
+     * @param namespace the namespace of the secret.
+     * @param type the credentials type of the secret.
+     * @param lagMillis the time between the update being made and the credential becoming visible.
+     * @see PropagationLagMonitor#getUpdatedAt(io.fabric8.kubernetes.api.model.Secret)
+     */
+    public void onPropagationLag(String cluster, String namespace, String type, long lagMillis) {
+    }
+
+    /**
+     * A LIST request was delayed by the rate limiter.
+     * @param cluster the name of the cluster.
+     * @param durationNanos the time the request was delayed.
+     */
+    public void onListThrottled(String cluster, long durationNanos) {
+    }
+
+    /**
+     * Repeated LIST failures have opened the circuit breaker of a cluster.
+     * @param cluster the name of the cluster.
+     */
+    public void onListCircuitOpened(String cluster) {
+    }
+
+    /**
+     * @return the enabled implementations combined, or {@link #NOOP} if there are none.
+     */
+    static KubernetesCredentialProviderMetrics get() {
+        List<KubernetesCredentialProviderMetrics> enabled = new ArrayList<>();
+        for (KubernetesCredentialProviderMetrics metrics : ExtensionList.lookup(KubernetesCredentialProviderMetrics.class)) {
+            if (metrics.isEnabled()) {
+                enabled.add(metrics);
+            }
+        }
+        if (enabled.isEmpty()) {
+            return NOOP;
+        }
+        return enabled.size() == 1 ? enabled.get(0) : new Composite(enabled.toArray(new KubernetesCredentialProviderMetrics[0]));
+    }
+
+    private static final class Composite extends KubernetesCredentialProviderMetrics {
+
+        private final KubernetesCredentialProviderMetrics[] delegates;
+
+        Composite(KubernetesCredentialProviderMetrics[] delegates) {
+            this.delegates = delegates;
+        }
+
+        @Override
+        public void onWatchEvent(String cluster, String namespace, Watcher.Action action) {
+            for (KubernetesCredentialProviderMetrics delegate : delegates) {
+                delegate.onWatchEvent(cluster, namespace, action);
+            }
+        }
+
+        @Override
+        public void onWatchReconnect(String cluster, String namespace) {
+            for (KubernetesCredentialProviderMetrics delegate : delegates) {
+                delegate.onWatchReconnect(cluster, namespace);
+            }
+        }
+
+        @Override
+        public void onConversion(String type, int count, long durationNanos) {
+            for (KubernetesCredentialProviderMetrics delegate : delegates) {
+                delegate.onConversion(type, count, durationNanos);
+            }
+        }
+
+        @Override
+        public void onConversionFailure(String type, String namespace) {
+            for (KubernetesCredentialProviderMetrics delegate : delegates) {
+                delegate.onConversionFailure(type, namespace);
+            }
+        }
+
+        @Override
+        public void onSync(String cluster, String namespace, int credentials) {
+            for (KubernetesCredentialProviderMetrics delegate : delegates) {
+                delegate.onSync(cluster, namespace, credentials);
+            }
+        }
+
+        @Override
+        public void onPropagationLag(String cluster, String namespace, String type, long lagMillis) {
+            for (KubernetesCredentialProviderMetrics delegate : delegates) {
+                delegate.onPropagationLag(cluster, namespace, type, lagMillis);
+            }
+        }
+
+        @Override
+        public void onListThrottled(String cluster, long durationNanos) {
+            for (KubernetesCredentialProviderMetrics delegate : delegates) {
+                delegate.onListThrottled(cluster, durationNanos);
+            }
+        }
+
+        @Override
+        public void onListCircuitOpened(String cluster) {
+            for (KubernetesCredentialProviderMetrics delegate : delegates) {
+                delegate.onListCircuitOpened(cluster);
+            }
+        }
+    }
+}
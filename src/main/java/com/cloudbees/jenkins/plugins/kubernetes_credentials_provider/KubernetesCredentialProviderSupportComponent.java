@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import com.cloudbees.jenkins.support.api.Component;
+import com.cloudbees.jenkins.support.api.Container;
+import com.cloudbees.jenkins.support.api.PrintedContent;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.security.Permission;
+import jenkins.model.Jenkins;
+
+/**
+ * Adds the diagnostics of the provider to support bundles, when the Support Core plugin is installed.
+ * No secret data is included.
+ */
+@Extension(optional = true)
+public class KubernetesCredentialProviderSupportComponent extends Component {
+
+    @NonNull
+    @Override
+    public Set<Permission> getPermissions() {
+        return Collections.singleton(Jenkins.ADMINISTER);
+    }
+
+    @NonNull
+    @Override
+    public String getDisplayName() {
+        return "Kubernetes Credentials Provider";
+    }
+
+    @Override
+    public void addContents(@NonNull Container container) {
+        KubernetesCredentialProvider provider = KubernetesCredentialProviderDiagnostics.getProvider();
+        if (provider == null) {
+            return;
+        }
+        container.add(new PrintedContent("kubernetes-credentials-provider/startup-timings.txt") {
+            @Override
+            protected void printTo(PrintWriter out) {
+                for (StartupTimings timings : provider.getStartupTimings()) {
+                    out.println(timings);
+                }
+            }
+        });
+        container.add(new PrintedContent("kubernetes-credentials-provider/api-traffic.txt") {
+            @Override
+            protected void printTo(PrintWriter out) {
+                Map<String, Long> reconnects = provider.getReconnectAttempts();
+                provider.getApiTraffic().forEach((cluster, traffic) ->
+                        out.println(cluster + ": " + traffic + ", reconnects=" + reconnects.getOrDefault(cluster, 0L)));
+            }
+        });
+        container.add(new PrintedContent("kubernetes-credentials-provider/recent-watch-events.txt") {
+            @Override
+            protected void printTo(PrintWriter out) {
+                for (WatchEventLog.Entry event : provider.getRecentWatchEvents()) {
+                    out.println(event);
+                }
+            }
+        });
+    }
+}
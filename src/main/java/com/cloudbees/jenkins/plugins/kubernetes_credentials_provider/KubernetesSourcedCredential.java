@@ -15,10 +15,30 @@ public class KubernetesSourcedCredential {
 
     private final IdCredentials idCredentials;
     private final Set<String> itemGroups;
+    /** The resourceVersion of the secret the credential was converted from, if known */
+    @Nullable
+    private final String resourceVersion;
+    /** The credentials type of the secret the credential was converted from, if known */
+    @Nullable
+    private final String type;
+    /** The estimated heap retained by the credential, in bytes */
+    private final long estimatedSize;
 
     public KubernetesSourcedCredential(IdCredentials idCredentials, Set<String> itemGroups) {
+        this(idCredentials, itemGroups, null);
+    }
+
+    public KubernetesSourcedCredential(IdCredentials idCredentials, Set<String> itemGroups, @Nullable String resourceVersion) {
+        this(idCredentials, itemGroups, resourceVersion, null, 0);
+    }
+
+    public KubernetesSourcedCredential(IdCredentials idCredentials, Set<String> itemGroups, @Nullable String resourceVersion,
+                                       @Nullable String type, long estimatedSize) {
         this.idCredentials = idCredentials;
         this.itemGroups = itemGroups;
+        this.resourceVersion = resourceVersion;
+        this.type = type;
+        this.estimatedSize = estimatedSize;
     }
 
     public IdCredentials getIdCredentials() {
@@ -33,6 +53,29 @@ public class KubernetesSourcedCredential {
         return idCredentials.getId();
     }
 
+    /**
+     * @return the resourceVersion of the secret the credential was converted from, or {@code null} if not known.
+     */
+    @Nullable
+    public String getResourceVersion() {
+        return resourceVersion;
+    }
+
+    /**
+     * @return the credentials type of the secret the credential was converted from, or {@code null} if not known.
+     */
+    @Nullable
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the estimated heap retained by the credential in bytes, {@code 0} if not known.
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
     @Nullable
     public CredentialsScope getScope() {
         return idCredentials.getScope();
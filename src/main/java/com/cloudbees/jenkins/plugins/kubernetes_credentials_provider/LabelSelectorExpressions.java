@@ -1,20 +1,41 @@
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import io.fabric8.kubernetes.api.model.LabelSelector;
 import io.fabric8.kubernetes.api.model.LabelSelectorBuilder;
+import io.fabric8.kubernetes.api.model.LabelSelectorRequirement;
 
 /**
  * Parser for <a href="https://kubernetes.io/docs/concepts/overview/working-with-objects/labels/#label-selectors">Kubernetes Label Selectors</a>.
  */
 class LabelSelectorExpressions {
 
+    /** Splits a selector into its comma separated expressions, taking care of the commas inside set based value lists */
+    private static final Pattern EXPRESSIONS = Pattern.compile("[^,]+?\\([^()]+\\)|[^,]+");
+
+    private static final Pattern EQUALITY_OPERATOR = Pattern.compile("!=|=");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern PARENTHESES = Pattern.compile("\\(|\\)");
+
+    private static final Pattern VALUE_SEPARATOR = Pattern.compile("\\s*,\\s*");
+
+    /** The most recently compiled selector, the provider re-reads the same expression on every (re)connect */
+    @CheckForNull
+    private static volatile Compiled lastCompiled;
+
     /**
      * Parse Kubernetes label selector expression.
      * Example:
@@ -28,11 +49,11 @@ class LabelSelectorExpressions {
     static LabelSelector parse(@Nullable String selector) throws LabelSelectorParseException {
         LabelSelectorBuilder lsb = new LabelSelectorBuilder();
         if (selector != null && !selector.trim().isEmpty()) {
-            Matcher matcher = Pattern.compile("[^,]+?\\([^()]+\\)|[^,]+").matcher(selector);
+            Matcher matcher = EXPRESSIONS.matcher(selector);
             while (matcher.find()) {
                 String expression = matcher.group();
-                expression = expression.replaceFirst("!=|=", " $0 ");
-                String[] tokens = expression.trim().split("\\s+", 3);
+                expression = EQUALITY_OPERATOR.matcher(expression).replaceFirst(" $0 ");
+                String[] tokens = WHITESPACE.split(expression.trim(), 3);
                 switch (tokens.length) {
                     case 1:
                         if (tokens[0].startsWith("!")) {
@@ -81,7 +102,95 @@ class LabelSelectorExpressions {
         return lsb.build();
     }
 
+    /**
+     * Parse a Kubernetes label selector expression and compile it into a matcher that can be evaluated in process.
+     * The result for the most recently used expression is cached.
+     * @param selector label selector expression or null
+     * @return the compiled label selector
+     * @throws LabelSelectorParseException when invalid selector expression
+     * @see #parse(String)
+     */
+    static Compiled compile(@Nullable String selector) throws LabelSelectorParseException {
+        Compiled compiled = lastCompiled;
+        if (compiled != null && Objects.equals(compiled.expression, selector)) {
+            return compiled;
+        }
+        LabelSelector labelSelector = parse(selector);
+        compiled = new Compiled(selector, labelSelector, LabelSelectorMatcher.compile(labelSelector));
+        lastCompiled = compiled;
+        return compiled;
+    }
+
+    /**
+     * Format a label selector as a Kubernetes label selector expression, the inverse of {@link #parse(String)}.
+     * @param selector the selector to format, {@code null} gives an empty expression.
+     * @return the expression, suitable for the {@code labelSelector} query parameter.
+     */
+    static String format(@Nullable LabelSelector selector) {
+        StringJoiner expressions = new StringJoiner(",");
+        if (selector == null) {
+            return expressions.toString();
+        }
+        Map<String, String> matchLabels = selector.getMatchLabels();
+        if (matchLabels != null) {
+            matchLabels.forEach((key, value) -> expressions.add(key + "=" + value));
+        }
+        List<LabelSelectorRequirement> matchExpressions = selector.getMatchExpressions();
+        if (matchExpressions != null) {
+            for (LabelSelectorRequirement requirement : matchExpressions) {
+                switch (requirement.getOperator()) {
+                    case "In":
+                        expressions.add(requirement.getKey() + " in (" + String.join(",", requirement.getValues()) + ")");
+                        break;
+                    case "NotIn":
+                        expressions.add(requirement.getKey() + " notin (" + String.join(",", requirement.getValues()) + ")");
+                        break;
+                    case "Exists":
+                        expressions.add(requirement.getKey());
+                        break;
+                    case "DoesNotExist":
+                        expressions.add("!" + requirement.getKey());
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unrecognized label selector operator '" + requirement.getOperator() + "'");
+                }
+            }
+        }
+        return expressions.toString();
+    }
+
     private static String[] values(String list) {
-        return list.replaceAll("\\(|\\)", "").trim().split("\\s*,\\s*");
+        return VALUE_SEPARATOR.split(PARENTHESES.matcher(list).replaceAll("").trim());
+    }
+
+    /**
+     * A parsed label selector along with its in process matcher.
+     */
+    static final class Compiled {
+
+        @CheckForNull
+        private final String expression;
+        private final LabelSelector selector;
+        private final LabelSelectorMatcher matcher;
+
+        private Compiled(@CheckForNull String expression, LabelSelector selector, LabelSelectorMatcher matcher) {
+            this.expression = expression;
+            this.selector = selector;
+            this.matcher = matcher;
+        }
+
+        /**
+         * @return the selector to pass to the API server.
+         */
+        LabelSelector getSelector() {
+            return selector;
+        }
+
+        /**
+         * @return the matcher to evaluate the selector in process.
+         */
+        LabelSelectorMatcher getMatcher() {
+            return matcher;
+        }
     }
 }
@@ -0,0 +1,121 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import io.fabric8.kubernetes.api.model.LabelSelector;
+import io.fabric8.kubernetes.api.model.LabelSelectorRequirement;
+
+/**
+ * Evaluates a {@link LabelSelector} against a set of labels in process, using the same semantics as the Kubernetes API server.
+ * This allows resources to be filtered locally without another round trip to the API server.
+ */
+final class LabelSelectorMatcher {
+
+    /** A matcher that matches any set of labels */
+    static final LabelSelectorMatcher ANY = new LabelSelectorMatcher(new Requirement[0]);
+
+    private final Requirement[] requirements;
+
+    private LabelSelectorMatcher(Requirement[] requirements) {
+        this.requirements = requirements;
+    }
+
+    /**
+     * Compile a label selector into a matcher.
+     * @param selector the selector to compile, a {@code null} selector matches everything.
+     * @return the compiled matcher.
+     * @throws IllegalArgumentException if the selector contains an unknown operator.
+     */
+    static LabelSelectorMatcher compile(@Nullable LabelSelector selector) {
+        if (selector == null) {
+            return ANY;
+        }
+        List<Requirement> requirements = new ArrayList<>();
+        Map<String, String> matchLabels = selector.getMatchLabels();
+        if (matchLabels != null) {
+            for (Map.Entry<String, String> entry : matchLabels.entrySet()) {
+                requirements.add(new Requirement(entry.getKey(), Operator.IN, Collections.singleton(entry.getValue())));
+            }
+        }
+        List<LabelSelectorRequirement> matchExpressions = selector.getMatchExpressions();
+        if (matchExpressions != null) {
+            for (LabelSelectorRequirement expression : matchExpressions) {
+                Operator operator = Operator.of(expression.getOperator());
+                List<String> values = expression.getValues();
+                Set<String> valueSet = values == null || values.isEmpty() ? Collections.emptySet() : new HashSet<>(values);
+                requirements.add(new Requirement(expression.getKey(), operator, valueSet));
+            }
+        }
+        return requirements.isEmpty() ? ANY : new LabelSelectorMatcher(requirements.toArray(new Requirement[0]));
+    }
+
+    /**
+     * Check if a set of labels is selected by this matcher.
+     * @param labels the labels to check, {@code null} is treated as no labels.
+     * @return {@code true} iff all the requirements of the selector are satisfied by {@code labels}.
+     */
+    boolean matches(@Nullable Map<String, String> labels) {
+        Map<String, String> _labels = labels == null ? Collections.emptyMap() : labels;
+        for (Requirement requirement : requirements) {
+            if (!requirement.matches(_labels)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private enum Operator {
+        IN, NOT_IN, EXISTS, DOES_NOT_EXIST;
+
+        static Operator of(String operator) {
+            switch (operator) {
+                case "In":
+                    return IN;
+                case "NotIn":
+                    return NOT_IN;
+                case "Exists":
+                    return EXISTS;
+                case "DoesNotExist":
+                    return DOES_NOT_EXIST;
+                default:
+                    throw new IllegalArgumentException("Unrecognized label selector operator '" + operator + "'");
+            }
+        }
+    }
+
+    private static final class Requirement {
+
+        private final String key;
+        private final Operator operator;
+        private final Set<String> values;
+
+        Requirement(String key, Operator operator, Set<String> values) {
+            this.key = key;
+            this.operator = operator;
+            this.values = values;
+        }
+
+        boolean matches(Map<String, String> labels) {
+            String value = labels.get(key);
+            switch (operator) {
+                case IN:
+                    return value != null && values.contains(value);
+                case NOT_IN:
+                    return value == null || !values.contains(value);
+                case EXISTS:
+                    return labels.containsKey(key);
+                case DOES_NOT_EXIST:
+                    return !labels.containsKey(key);
+                default:
+                    throw new AssertionError(operator);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A circuit breaker for the LIST requests made to the API server of a cluster.
+ * After {@link #LIST_FAILURE_THRESHOLD} consecutive failures the breaker opens and no LIST is attempted until the backoff
+ * has elapsed, during which watches that close are resumed from the last seen resourceVersion instead of relisting.
+ * The backoff starts at {@link #LIST_BACKOFF_SECONDS} and doubles each time a trial LIST fails, up to
+ * {@link #LIST_MAX_BACKOFF_SECONDS}. A successful LIST closes the breaker.
+ * The breaker never opens unless a threshold is set.
+ */
+final class ListCircuitBreaker {
+
+    /** The number of consecutive LIST failures that open the breaker, {@code 0} (the default) to never open it */
+    static final String LIST_FAILURE_THRESHOLD = KubernetesCredentialProvider.class.getName() + ".listFailureThreshold";
+
+    /** The initial time the breaker stays open, in seconds */
+    static final String LIST_BACKOFF_SECONDS = KubernetesCredentialProvider.class.getName() + ".listBackoffSeconds";
+
+    /** The maximum time the breaker stays open, in seconds */
+    static final String LIST_MAX_BACKOFF_SECONDS = KubernetesCredentialProvider.class.getName() + ".listMaxBackoffSeconds";
+
+    private final LongSupplier nanoTime;
+    private final int threshold;
+    private final long initialBackoff;
+    private final long maxBackoff;
+
+    private int consecutiveFailures;
+    /** The current backoff in nanoseconds, {@code 0} while closed */
+    private long backoff;
+    /** The time at which a trial LIST may be made while open */
+    private long openUntil;
+    private long openCount;
+
+    ListCircuitBreaker(int threshold, long initialBackoff, long maxBackoff, TimeUnit unit, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.threshold = threshold;
+        this.initialBackoff = unit.toNanos(initialBackoff);
+        this.maxBackoff = Math.max(this.initialBackoff, unit.toNanos(maxBackoff));
+    }
+
+    /**
+     * @return a breaker configured from the system properties.
+     */
+    static ListCircuitBreaker fromSystemProperties() {
+        return new ListCircuitBreaker(Integer.getInteger(LIST_FAILURE_THRESHOLD, 0),
+                Integer.getInteger(LIST_BACKOFF_SECONDS, 30),
+                Integer.getInteger(LIST_MAX_BACKOFF_SECONDS, 600),
+                TimeUnit.SECONDS, System::nanoTime);
+    }
+
+    /**
+     * @return {@code true} if a LIST may be made now, which while open is a single trial once the backoff has elapsed.
+     */
+    synchronized boolean allowList() {
+        if (backoff == 0) {
+            return true;
+        }
+        long now = nanoTime.getAsLong();
+        if (now - openUntil >= 0) {
+            // let one trial through, further requests wait for its outcome
+            openUntil = now + backoff;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if the breaker is open, so closed watches should be resumed rather than relisted.
+     */
+    synchronized boolean isOpen() {
+        return backoff != 0;
+    }
+
+    /**
+     * @return the milliseconds until a trial LIST may be made, {@code 0} if the breaker is closed.
+     */
+    synchronized long getRemainingMillis() {
+        return backoff == 0 ? 0 : Math.max(0, TimeUnit.NANOSECONDS.toMillis(openUntil - nanoTime.getAsLong()));
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        backoff = 0;
+    }
+
+    /**
+     * @return {@code true} if this failure opened the breaker, or extended the backoff of an open breaker.
+     */
+    synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        if (threshold <= 0 || consecutiveFailures < threshold) {
+            return false;
+        }
+        if (backoff == 0) {
+            backoff = initialBackoff;
+            openCount++;
+        } else {
+            backoff = Math.min(maxBackoff, backoff * 2);
+        }
+        openUntil = nanoTime.getAsLong() + backoff;
+        return true;
+    }
+
+    /**
+     * @return the number of times the breaker has opened.
+     */
+    synchronized long getOpenCount() {
+        return openCount;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket limiting the rate of LIST requests made to the API server of a cluster.
+ * Up to {@link #LIST_BURST} requests may be made at once, after which requests are spaced so that no more than
+ * {@link #LIST_QPS} are made per second on average.
+ * This spreads out the relists of many controllers that lose their watches at the same time.
+ * Callers are not made to wait: a throttled LIST is scheduled for when its token becomes available.
+ */
+final class ListRateLimiter {
+
+    /** The average number of LIST requests per second, {@code 0} (the default) for no limit */
+    static final String LIST_QPS = KubernetesCredentialProvider.class.getName() + ".listQps";
+
+    /** The number of LIST requests that can be made at once before they are limited, defaults to the {@link #LIST_QPS} */
+    static final String LIST_BURST = KubernetesCredentialProvider.class.getName() + ".listBurst";
+
+    private final LongSupplier nanoTime;
+
+    /** The nanoseconds between tokens, {@code 0} for no limit */
+    private final long interval;
+
+    /** The nanoseconds of tokens that may be saved up */
+    private final long capacity;
+
+    /** The time at which the next token becomes available */
+    private long nextFree;
+
+    private final AtomicLong throttledNanos = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    ListRateLimiter(double qps, int burst, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        this.interval = qps > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / qps) : 0;
+        this.capacity = interval * Math.max(1, burst);
+        this.nextFree = nanoTime.getAsLong() - capacity;
+    }
+
+    /**
+     * @return a limiter configured from the system properties.
+     */
+    static ListRateLimiter fromSystemProperties() {
+        double qps = Double.parseDouble(System.getProperty(LIST_QPS, "0"));
+        int burst = Integer.getInteger(LIST_BURST, (int) Math.ceil(qps));
+        return new ListRateLimiter(qps, burst, System::nanoTime);
+    }
+
+    /**
+     * Take a token, reserving the next free one if none is available.
+     * @return the nanoseconds the caller must wait before its token is available, {@code 0} if it is available now.
+     */
+    long reserve() {
+        if (interval == 0) {
+            return 0;
+        }
+        long wait;
+        synchronized (this) {
+            long now = nanoTime.getAsLong();
+            // tokens that have not been used for a while are saved up, to at most the burst size
+            long free = Math.max(nextFree, now - capacity);
+            nextFree = free + interval;
+            wait = Math.max(0, nextFree - now);
+        }
+        if (wait > 0) {
+            throttledNanos.addAndGet(wait);
+            throttledCount.incrementAndGet();
+        }
+        return wait;
+    }
+
+    /**
+     * @return the total time LIST requests have been delayed by the limiter, in milliseconds.
+     */
+    long getThrottledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos.get());
+    }
+
+    /**
+     * @return the number of LIST requests that have been delayed by the limiter.
+     */
+    long getThrottledCount() {
+        return throttledCount.get();
+    }
+}
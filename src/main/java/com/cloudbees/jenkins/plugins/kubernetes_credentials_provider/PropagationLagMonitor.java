@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.AdministrativeMonitor;
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntry;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.Secret;
+
+/**
+ * Measures the time between a secret being updated in Kubernetes and the updated credential being visible in Jenkins,
+ * and warns administrators when it exceeds {@link #THRESHOLD_SECONDS}.
+ * The time of the update is taken from the {@link #UPDATED_AT_ANNOTATION} annotation if the secret has one, or else
+ * from the latest {@code managedFields} entry, which has a resolution of one second.
+ * Percentiles are computed over the most recent {@link #WINDOW} updates.
+ */
+@Extension
+public class PropagationLagMonitor extends AdministrativeMonitor {
+
+    private static final Logger LOG = Logger.getLogger(PropagationLagMonitor.class.getName());
+
+    /** Optional annotation holding the time the secret was last updated, as an RFC 3339 timestamp */
+    static final String UPDATED_AT_ANNOTATION = "jenkins.io/credentials-updated-at";
+
+    /** The 99th percentile lag above which administrators are warned, {@code 0} to never warn */
+    static final String THRESHOLD_SECONDS = KubernetesCredentialProvider.class.getName() + ".propagationLagThresholdSeconds";
+
+    /** The number of recent updates percentiles are computed over */
+    static final int WINDOW = 1024;
+
+    private final long[] lags = new long[WINDOW];
+    private int next;
+    private int size;
+
+    /**
+     * @return the monitor, or {@code null} if Jenkins is not running.
+     */
+    @CheckForNull
+    static PropagationLagMonitor get() {
+        return ExtensionList.lookup(AdministrativeMonitor.class).get(PropagationLagMonitor.class);
+    }
+
+    @NonNull
+    @Override
+    public String getDisplayName() {
+        return "Kubernetes Credentials Provider secret propagation lag";
+    }
+
+    @Override
+    public boolean isActivated() {
+        long threshold = getThresholdSeconds();
+        return threshold > 0 && getSampleCount() > 0 && getPercentileMillis(99) > threshold * 1000;
+    }
+
+    public long getThresholdSeconds() {
+        return Long.getLong(THRESHOLD_SECONDS, 60);
+    }
+
+    /**
+     * Obtain the time the secret was last updated in Kubernetes.
+     * @return the time in milliseconds since the epoch, or {@code null} if it is not known.
+     */
+    @CheckForNull
+    static Long getUpdatedAt(Secret secret) {
+        ObjectMeta metadata = secret.getMetadata();
+        Map<String, String> annotations = metadata.getAnnotations();
+        String updatedAt = annotations == null ? null : annotations.get(UPDATED_AT_ANNOTATION);
+        if (updatedAt != null) {
+            try {
+                return Instant.parse(updatedAt).toEpochMilli();
+            } catch (DateTimeParseException e) {
+                LOG.log(Level.FINE, "Ignoring malformed {0} annotation of secret {1}: {2}", new Object[] {UPDATED_AT_ANNOTATION, metadata.getName(), updatedAt});
+            }
+        }
+        List<ManagedFieldsEntry> managedFields = metadata.getManagedFields();
+        Long latest = null;
+        if (managedFields != null) {
+            for (ManagedFieldsEntry entry : managedFields) {
+                if (entry.getTime() == null) {
+                    continue;
+                }
+                try {
+                    long time = Instant.parse(entry.getTime()).toEpochMilli();
+                    latest = latest == null ? time : Math.max(latest, time);
+                } catch (DateTimeParseException e) {
+                    LOG.log(Level.FINEST, "Ignoring malformed managedFields time of secret {0}: {1}", new Object[] {metadata.getName(), entry.getTime()});
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Record the lag of an update.
+     * @param lagMillis the time between the update and the credential becoming visible, negative lags caused by clock
+     *            skew are recorded as {@code 0}.
+     */
+    synchronized void record(long lagMillis) {
+        lags[next] = Math.max(0, lagMillis);
+        next = (next + 1) % WINDOW;
+        size = Math.min(WINDOW, size + 1);
+    }
+
+    public synchronized int getSampleCount() {
+        return size;
+    }
+
+    /**
+     * @param percentile the percentile, between {@code 0} and {@code 100}.
+     * @return the percentile of the recent lags in milliseconds, {@code 0} if there are none.
+     */
+    public long getPercentileMillis(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (size == 0) {
+                return 0;
+            }
+            sorted = Arrays.copyOf(lags, size);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(sorted.length * Math.min(100, Math.max(0, percentile)) / 100);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import jenkins.model.Jenkins;
+
+/**
+ * Spans around listing, watching and converting secrets, so that slow startups and stalled syncs can be correlated with
+ * the rest of a trace.
+ * The spans are reported to OpenTelemetry when its API is available (for example from the OpenTelemetry API plugin),
+ * which is accessed reflectively so that this plugin does not depend on it. Otherwise tracing is a no-op.
+ * Tracing can be disabled with the {@link #TRACING} system property.
+ */
+abstract class ProviderTracing {
+
+    private static final Logger LOG = Logger.getLogger(ProviderTracing.class.getName());
+
+    /** Set to {@code false} to not report spans even if OpenTelemetry is available */
+    static final String TRACING = KubernetesCredentialProvider.class.getName() + ".tracing";
+
+    static final String INSTRUMENTATION_NAME = "io.jenkins.plugins.kubernetes-credentials-provider";
+
+    static final String CLUSTER = "k8s.cluster.name";
+    static final String NAMESPACE = "k8s.namespace.name";
+    static final String TYPE = "jenkins.credentials.type";
+    static final String SIZE = "jenkins.credentials.secrets";
+    static final String ACTION = "k8s.watch.action";
+
+    /** Used when OpenTelemetry is not available */
+    static final ProviderTracing NOOP = new ProviderTracing() {
+        @Override
+        Span start(String name) {
+            return Span.NOOP;
+        }
+    };
+
+    /**
+     * Start a span, which is current until it is closed.
+     * @param name the name of the span.
+     * @return the span, to be closed on the thread that started it.
+     */
+    abstract Span start(String name);
+
+    /**
+     * @return the tracing to use, resolved from the classes visible to Jenkins plugins.
+     */
+    static ProviderTracing get() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return create(jenkins == null ? ProviderTracing.class.getClassLoader() : jenkins.getPluginManager().uberClassLoader);
+    }
+
+    /**
+     * @param loader the class loader to look for OpenTelemetry in.
+     * @return tracing reporting to OpenTelemetry if it is available and enabled, else {@link #NOOP}.
+     */
+    static ProviderTracing create(ClassLoader loader) {
+        if (!Boolean.parseBoolean(System.getProperty(TRACING, "true"))) {
+            return NOOP;
+        }
+        try {
+            return new OpenTelemetryTracing(loader);
+        } catch (ClassNotFoundException e) {
+            LOG.log(Level.FINE, "OpenTelemetry is not available, not tracing");
+            return NOOP;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            LOG.log(Level.WARNING, "Unsupported OpenTelemetry API, not tracing", e);
+            return NOOP;
+        }
+    }
+
+    /**
+     * A span, the default implementation of which does nothing.
+     */
+    static class Span implements AutoCloseable {
+
+        static final Span NOOP = new Span();
+
+        /**
+         * @param value the value of the attribute, {@code null} to not set it.
+         */
+        Span attribute(String key, @CheckForNull String value) {
+            return this;
+        }
+
+        Span attribute(String key, long value) {
+            return this;
+        }
+
+        /**
+         * Record that the operation of the span failed.
+         */
+        void error(Throwable t) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Reports spans to {@code io.opentelemetry.api.GlobalOpenTelemetry}.
+     */
+    private static final class OpenTelemetryTracing extends ProviderTracing {
+
+        private final Object tracer;
+        private final Method spanBuilder;
+        private final Method startSpan;
+        private final Method makeCurrent;
+        private final Method setStringAttribute;
+        private final Method setLongAttribute;
+        private final Method recordException;
+        private final Method end;
+        private final Method closeScope;
+
+        OpenTelemetryTracing(ClassLoader loader) throws ReflectiveOperationException {
+            Class<?> globalOpenTelemetry = Class.forName("io.opentelemetry.api.GlobalOpenTelemetry", true, loader);
+            Class<?> tracerClass = Class.forName("io.opentelemetry.api.trace.Tracer", true, loader);
+            Class<?> spanBuilderClass = Class.forName("io.opentelemetry.api.trace.SpanBuilder", true, loader);
+            Class<?> spanClass = Class.forName("io.opentelemetry.api.trace.Span", true, loader);
+            Class<?> scopeClass = Class.forName("io.opentelemetry.context.Scope", true, loader);
+            tracer = globalOpenTelemetry.getMethod("getTracer", String.class).invoke(null, INSTRUMENTATION_NAME);
+            spanBuilder = tracerClass.getMethod("spanBuilder", String.class);
+            startSpan = spanBuilderClass.getMethod("startSpan");
+            makeCurrent = spanClass.getMethod("makeCurrent");
+            setStringAttribute = spanClass.getMethod("setAttribute", String.class, String.class);
+            setLongAttribute = spanClass.getMethod("setAttribute", String.class, long.class);
+            recordException = spanClass.getMethod("recordException", Throwable.class);
+            end = spanClass.getMethod("end");
+            closeScope = scopeClass.getMethod("close");
+        }
+
+        @Override
+        Span start(String name) {
+            try {
+                Object span = startSpan.invoke(spanBuilder.invoke(tracer, name));
+                return new OpenTelemetrySpan(span, makeCurrent.invoke(span));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                LOG.log(Level.FINE, "Failed to start span " + name, e);
+                return Span.NOOP;
+            }
+        }
+
+        private final class OpenTelemetrySpan extends Span {
+
+            private final Object span;
+            private final Object scope;
+
+            OpenTelemetrySpan(Object span, Object scope) {
+                this.span = span;
+                this.scope = scope;
+            }
+
+            @Override
+            Span attribute(String key, @CheckForNull String value) {
+                if (value != null) {
+                    invoke(setStringAttribute, key, value);
+                }
+                return this;
+            }
+
+            @Override
+            Span attribute(String key, long value) {
+                invoke(setLongAttribute, key, value);
+                return this;
+            }
+
+            @Override
+            void error(Throwable t) {
+                invoke(recordException, t);
+            }
+
+            @Override
+            public void close() {
+                try {
+                    closeScope.invoke(scope);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    LOG.log(Level.FINE, "Failed to close the scope of a span", e);
+                }
+                invoke(end);
+            }
+
+            private void invoke(Method method, Object... args) {
+                try {
+                    method.invoke(span, args);
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    LOG.log(Level.FINE, "Failed to call " + method.getName() + " on a span", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2018 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import io.fabric8.kubernetes.api.model.Secret;
+
+/**
+ * A view of a {@link Secret} with its custom key bindings resolved.
+ * The annotations of the secret are scanned a single time when the view is created, so reading several fields does not
+ * need to build the {@code jenkins.io/credentials-keybinding-<key>} annotation name and probe the annotations for each one.
+ * The item scopes of the secret are parsed the first time they are needed and kept with the view.
+ * <em>Note</em>: API may be subject to change.
+ * @see SecretUtils#getKeyName(Secret, String)
+ */
+public final class ResolvedSecret {
+
+    private static final Logger LOG = Logger.getLogger(ResolvedSecret.class.getName());
+
+    private final Secret secret;
+
+    /** Custom key bindings, keyed by the default key name, empty if the annotation has no entry */
+    private final Map<String, String> keyBindings;
+
+    /** The value of the item group annotation, {@code null} if there is none */
+    @CheckForNull
+    private final String itemScopesAnnotation;
+
+    /** The parsed {@link #itemScopesAnnotation}, {@code null} until it is needed */
+    @CheckForNull
+    private Set<String> itemScopes;
+
+    private ResolvedSecret(Secret secret, Map<String, String> keyBindings, @CheckForNull String itemScopesAnnotation) {
+        this.secret = secret;
+        this.keyBindings = keyBindings;
+        this.itemScopesAnnotation = itemScopesAnnotation;
+    }
+
+    /**
+     * Create the view of a secret.
+     * @param secret the secret to resolve the key bindings of.
+     * @return the resolved view of the secret.
+     */
+    public static ResolvedSecret of(Secret secret) {
+        Map<String, String> annotations = secret.getMetadata().getAnnotations();
+        if (annotations == null || annotations.isEmpty()) {
+            return new ResolvedSecret(secret, Collections.emptyMap(), null);
+        }
+        Map<String, String> keyBindings = null;
+        String itemScopesAnnotation = null;
+        for (Map.Entry<String, String> annotation : annotations.entrySet()) {
+            String annotationName = annotation.getKey();
+            if (annotationName.equals(SecretUtils.JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION)) {
+                itemScopesAnnotation = annotation.getValue();
+                continue;
+            }
+            if (!annotationName.startsWith(SecretUtils.JENKINS_IO_CREDENTIALS_KEYBINDING_ANNOTATION_PREFIX)) {
+                continue;
+            }
+            if (keyBindings == null) {
+                keyBindings = new HashMap<>();
+            }
+            // empty entries are kept so that they are only reported if the key is actually looked up
+            String customMapping = annotation.getValue();
+            keyBindings.put(annotationName.substring(SecretUtils.JENKINS_IO_CREDENTIALS_KEYBINDING_ANNOTATION_PREFIX.length()),
+                    customMapping == null ? "" : customMapping);
+        }
+        return new ResolvedSecret(secret, keyBindings == null ? Collections.emptyMap() : keyBindings, itemScopesAnnotation);
+    }
+
+    /**
+     * @return the underlying secret.
+     */
+    public Secret getSecret() {
+        return secret;
+    }
+
+    /**
+     * Gets all item-group scopes of the secret, parsing the annotation only once.
+     * @return a set of all item-group scopes.
+     * @throws CredentialsConvertionException if the annotation is malformed.
+     * @see SecretUtils#parseCredentialItemScopes(Secret)
+     */
+    public Set<String> getCredentialItemScopes() throws CredentialsConvertionException {
+        Set<String> _itemScopes = itemScopes;
+        if (_itemScopes == null) {
+            _itemScopes = itemScopesAnnotation == null ? Collections.emptySet() : SecretUtils.parseItemScopes(itemScopesAnnotation);
+            itemScopes = _itemScopes;
+        }
+        return _itemScopes;
+    }
+
+    /**
+     * Get the scope of the secret.
+     * If the label is empty, then it defaults to global scope.
+     * @return the scope of the secret.
+     * @throws CredentialsConvertionException if scope is invalid.
+     * @see SecretUtils#getCredentialScope(Secret)
+     */
+    public CredentialsScope getCredentialScope() throws CredentialsConvertionException {
+        Map<String, String> labels = secret.getMetadata().getLabels();
+        String label = labels == null ? null : labels.get(SecretUtils.JENKINS_IO_CREDENTIALS_SCOPE_LABEL);
+        if (label == null) {
+            return CredentialsScope.GLOBAL;
+        }
+        if (!getCredentialItemScopes().isEmpty()) {
+            throw new CredentialsConvertionException(SecretUtils.JENKINS_IO_CREDENTIALS_SCOPE_LABEL + " can not be combined with " +
+                    SecretUtils.JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION);
+        }
+        try {
+            return CredentialsScope.valueOf(label.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            throw new CredentialsConvertionException(SecretUtils.JENKINS_IO_CREDENTIALS_SCOPE_LABEL + " is set to an invalid scope: " + label, exception);
+        }
+    }
+
+    /**
+     * Get the mapping for the specified key name.
+     * @param key the name of the key we are looking for.
+     * @return the custom mapping for the key or {@code key} (identical object) if there is no custom mapping.
+     */
+    public String getKeyName(String key) {
+        String customMapping = getCustomMapping(key);
+        return customMapping == null ? key : customMapping;
+    }
+
+    /**
+     * @return the custom mapping for the key, {@code null} if there is none or the annotation has no entry.
+     */
+    private String getCustomMapping(String key) {
+        String customMapping = keyBindings.get(key);
+        if (customMapping != null && customMapping.isEmpty()) {
+            LOG.log(Level.WARNING, "Secret {0} contains a mapping annotation {1} but has no entry - mapping will "
+                                   + "not be performed",
+                    new Object[] {secret.getMetadata().getName(), SecretUtils.JENKINS_IO_CREDENTIALS_KEYBINDING_ANNOTATION_PREFIX + key});
+            return null;
+        }
+        return customMapping;
+    }
+
+    /**
+     * Get the data for the specified key (or the mapped key if key is mapped), or throw a
+     * CredentialsConvertionException if the data for the given key was not present.
+     *
+     * @param key the key to get the data for (which may be mapped to another key).
+     * @param exceptionMessage the detailMessage of the exception if the data for the key (or mapped key) was not
+     *            present.
+     * @return The data for the given key.
+     * @throws CredentialsConvertionException if the data was not present.
+     */
+    public String getNonNullData(String key, String exceptionMessage) throws CredentialsConvertionException {
+        String customMapping = getCustomMapping(key);
+        String mappedKey = customMapping == null ? key : customMapping;
+        Map<String, String> data = SecretUtils.requireNonNull(secret.getData(), exceptionMessage, customMapping);
+        return SecretUtils.requireNonNull(data.get(mappedKey), exceptionMessage, mappedKey);
+    }
+
+    /**
+     * Get optional data for the specified key (or the mapped key if key is mapped).
+     *
+     * @param key the key to get the data for (which may be mapped to another key).
+     * @param exceptionMessage the detailMessage of the exception if the key is present but the data for the mapped
+     *            key was not.
+     * @return Optional data for specified key
+     * @throws CredentialsConvertionException if the data was not present.
+     */
+    public Optional<String> getOptionalData(String key, String exceptionMessage) throws CredentialsConvertionException {
+        Map<String, String> data = secret.getData();
+        if (data == null) {
+            return Optional.empty();
+        }
+        String mappedKey = getKeyName(key);
+        if (data.containsKey(key) || data.containsKey(mappedKey)) {
+            return Optional.of(SecretUtils.requireNonNull(data.get(mappedKey), exceptionMessage, mappedKey));
+        }
+        return Optional.empty();
+    }
+}
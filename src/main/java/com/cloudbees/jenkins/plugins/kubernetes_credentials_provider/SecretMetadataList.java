@@ -0,0 +1,221 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.kubernetes.api.model.ListOptions;
+import io.fabric8.kubernetes.api.model.SecretList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.http.HttpClient;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+/**
+ * The result of listing secrets as {@code PartialObjectMetadata}, that is their metadata without their data.
+ * API servers that do not support the metadata only representation (or ignore the {@code Accept} header) return the full
+ * secrets, in which case they are available from {@link #getFullList()}.
+ */
+final class SecretMetadataList {
+
+    /** Requests the metadata only representation, falling back to plain JSON for API servers that do not support it */
+    static final String ACCEPT = "application/json;as=PartialObjectMetadataList;g=meta.k8s.io;v=v1,application/json";
+
+    private final String resourceVersion;
+    @CheckForNull
+    private final String continueToken;
+    private final List<Item> items;
+    @CheckForNull
+    private final SecretList fullList;
+
+    private SecretMetadataList(String resourceVersion, @CheckForNull String continueToken, List<Item> items, @CheckForNull SecretList fullList) {
+        this.resourceVersion = resourceVersion;
+        this.continueToken = continueToken;
+        this.items = items;
+        this.fullList = fullList;
+    }
+
+    /**
+     * List the metadata of the secrets matching the label selector.
+     * @param client the client to list with.
+     * @param namespace the namespace to list, or {@code null} to list all namespaces.
+     * @param labelSelector the label selector expression.
+     * @param options the {@code limit}, {@code continue}, {@code resourceVersion} and {@code resourceVersionMatch} to
+     *                send, or {@code null} for none.
+     * @return the metadata of the matching secrets.
+     * @throws KubernetesClientException if the request failed.
+     */
+    @NonNull
+    static SecretMetadataList list(KubernetesClient client, @CheckForNull String namespace, String labelSelector, @CheckForNull ListOptions options) {
+        StringBuilder url = new StringBuilder(client.getMasterUrl().toString());
+        if (url.charAt(url.length() - 1) != '/') {
+            url.append('/');
+        }
+        url.append("api/v1/");
+        if (namespace != null) {
+            url.append("namespaces/").append(namespace).append('/');
+        }
+        url.append("secrets?labelSelector=").append(URLEncoder.encode(labelSelector, StandardCharsets.UTF_8));
+        if (options != null) {
+            appendParameter(url, "limit", options.getLimit() == null ? null : options.getLimit().toString());
+            appendParameter(url, "continue", options.getContinue());
+            appendParameter(url, "resourceVersion", options.getResourceVersion());
+            appendParameter(url, "resourceVersionMatch", options.getResourceVersionMatch());
+        }
+
+        HttpClient httpClient = client.getHttpClient();
+        HttpRequest request = httpClient.newHttpRequestBuilder()
+                .uri(url.toString())
+                .header("Accept", ACCEPT)
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.sendAsync(request, String.class)
+                    .get(client.getConfiguration().getRequestTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KubernetesClientException("Interrupted listing secret metadata", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KubernetesClientException("Failed to list secret metadata: " + e.getMessage(), e);
+        }
+        if (!response.isSuccessful()) {
+            throw new KubernetesClientException("Failed to list secret metadata: " + response.code() + " " + response.body(), response.code(), null);
+        }
+        return parse(response.body());
+    }
+
+    private static void appendParameter(StringBuilder url, String name, @CheckForNull String value) {
+        if (value != null && !value.isEmpty()) {
+            url.append('&').append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    static SecretMetadataList parse(String body) {
+        JsonNode list;
+        try {
+            list = Serialization.jsonMapper().readTree(body);
+        } catch (IOException e) {
+            throw new KubernetesClientException("Failed to parse secret metadata", e);
+        }
+        if (!"PartialObjectMetadataList".equals(list.path("kind").asText())) {
+            // the API server ignored the request for metadata only
+            SecretList fullList = Serialization.jsonMapper().convertValue(list, SecretList.class);
+            return new SecretMetadataList(fullList.getMetadata().getResourceVersion(), fullList.getMetadata().getContinue(), Collections.emptyList(), fullList);
+        }
+        List<Item> items = new ArrayList<>();
+        for (JsonNode item : list.path("items")) {
+            JsonNode metadata = item.path("metadata");
+            items.add(new Item(metadata.path("namespace").asText(null), metadata.path("name").asText(), metadata.path("resourceVersion").asText(null)));
+        }
+        JsonNode metadata = list.path("metadata");
+        return new SecretMetadataList(metadata.path("resourceVersion").asText(null), metadata.path("continue").asText(null), items, null);
+    }
+
+    /**
+     * Append the following page of a paged list.
+     * @param next the page listed with the continue token of this one.
+     * @return the items of both pages, with the resourceVersion and continue token of the following page.
+     */
+    SecretMetadataList withNextPage(SecretMetadataList next) {
+        List<Item> all = new ArrayList<>(items.size() + next.items.size());
+        all.addAll(items);
+        all.addAll(next.items);
+        return new SecretMetadataList(next.resourceVersion, next.continueToken, all, null);
+    }
+
+    /**
+     * @return the resourceVersion of the list, to start watching from.
+     */
+    String getResourceVersion() {
+        return resourceVersion;
+    }
+
+    /**
+     * @return the token to list the following page with, {@code null} or empty if this is the last page.
+     */
+    @CheckForNull
+    String getContinue() {
+        return continueToken;
+    }
+
+    /**
+     * @return the metadata of the secrets, empty if the API server returned the full secrets.
+     */
+    List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * @return the full secrets if the API server does not support listing only the metadata, otherwise {@code null}.
+     */
+    @CheckForNull
+    SecretList getFullList() {
+        return fullList;
+    }
+
+    /**
+     * The metadata of a single secret.
+     */
+    static final class Item {
+
+        @CheckForNull
+        private final String namespace;
+        private final String name;
+        @CheckForNull
+        private final String resourceVersion;
+
+        Item(@CheckForNull String namespace, String name, @CheckForNull String resourceVersion) {
+            this.namespace = namespace;
+            this.name = name;
+            this.resourceVersion = resourceVersion;
+        }
+
+        @CheckForNull
+        String getNamespace() {
+            return namespace;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        @CheckForNull
+        String getResourceVersion() {
+            return resourceVersion;
+        }
+    }
+}
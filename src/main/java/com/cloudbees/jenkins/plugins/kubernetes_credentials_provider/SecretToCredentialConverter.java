@@ -23,6 +23,9 @@
  */
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
 
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import io.fabric8.kubernetes.api.model.Secret;
 import hudson.ExtensionList;
@@ -41,6 +44,17 @@ public abstract class SecretToCredentialConverter implements ExtensionPoint {
      */
     public abstract boolean canConvert(String type);
 
+    /**
+     * Obtain the types of secret this converter can convert, if they are known in advance.
+     * When every converter declares its types the provider can restrict the secrets it lists and watches to those that
+     * can be converted, so that secrets of other types never leave the API server.
+     * @return the types for which {@link #canConvert(String)} returns {@code true}, or {@code null} if they are not known.
+     */
+    @CheckForNull
+    public Set<String> getSupportedTypes() {
+        return null;
+    }
+
     /**
      * Convert the given {@code Secret} to an {@code IdCredential}.
      * This will only be called for a secret of a type that the class has previously returned {@code true} from {@link #canConvert(String)}.
@@ -50,6 +64,30 @@ public abstract class SecretToCredentialConverter implements ExtensionPoint {
      */
     public abstract IdCredentials convert(Secret secret) throws CredentialsConvertionException;
 
+    /**
+     * Convert a batch of {@code Secret}s to {@code IdCredential}s.
+     * This will only be called for secrets of a type that the class has previously returned {@code true} from {@link #canConvert(String)}.
+     * Implementations may override this to amortize any per-batch setup (keystore factories, key parsers, ...) across
+     * all the secrets in the batch.
+     * The default implementation delegates to {@link #convert(Secret)} for each secret.
+     * A failure to convert one secret must not prevent the remaining secrets from being converted, so failures are
+     * reported to the {@code callback} rather than thrown.
+     * @param secrets the Secrets to convert.
+     * @param callback the callback to notify of the outcome of each conversion.
+     */
+    public void convertAll(Collection<Secret> secrets, ConversionCallback callback) {
+        for (Secret secret : secrets) {
+            IdCredentials credentials;
+            try {
+                credentials = convert(secret);
+            } catch (CredentialsConvertionException ex) {
+                callback.onFailure(secret, ex);
+                continue;
+            }
+            callback.onSuccess(secret, credentials);
+        }
+    }
+
     /**
      * Helper to obtain all the implementations of this {@code ExtensionPoint}
      * @return the ExtensionList containing all of the implementations.
@@ -58,6 +96,24 @@ public abstract class SecretToCredentialConverter implements ExtensionPoint {
         return ExtensionList.lookup(SecretToCredentialConverter.class);
     }
 
+    /**
+     * Helper to obtain the types of secret that can be converted by any of the implementations.
+     * @return the supported types, or {@code null} if any implementation does not declare its types.
+     * @see #getSupportedTypes()
+     */
+    @CheckForNull
+    static Set<String> allSupportedTypes() {
+        Set<String> types = new TreeSet<>();
+        for (SecretToCredentialConverter stcc : all()) {
+            Set<String> supportedTypes = stcc.getSupportedTypes();
+            if (supportedTypes == null) {
+                return null;
+            }
+            types.addAll(supportedTypes);
+        }
+        return types;
+    }
+
     /**
      * Helper to obtain the SecretToCredentialConvertor that can convert this type of secret.
      * @param type the type of the secret to convert.
@@ -74,4 +130,23 @@ public abstract class SecretToCredentialConverter implements ExtensionPoint {
         return null;
     }
 
+    /**
+     * Receives the outcome of converting each secret passed to {@link #convertAll(Collection, ConversionCallback)}.
+     */
+    public interface ConversionCallback {
+
+        /**
+         * Called when a secret was successfully converted.
+         * @param secret the Secret that was converted.
+         * @param credentials the IdCredentials created from the secret.
+         */
+        void onSuccess(Secret secret, IdCredentials credentials);
+
+        /**
+         * Called when a secret could not be converted.
+         * @param secret the Secret that could not be converted.
+         * @param ex the reason the secret could not be converted.
+         */
+        void onFailure(Secret secret, CredentialsConvertionException ex);
+    }
 }
@@ -27,18 +27,18 @@ import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Locale;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import com.cloudbees.plugins.credentials.CredentialsScope;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
@@ -60,7 +60,7 @@ public abstract class SecretUtils {
     private static final String JENKINS_IO_CREDENTIALS_DESCRIPTION_ANNOTATION = "jenkins.io/credentials-description";
 
     /** Annotation prefix for the optional custom mapping of data */
-    private static final String JENKINS_IO_CREDENTIALS_KEYBINDING_ANNOTATION_PREFIX = "jenkins.io/credentials-keybinding-";
+    static final String JENKINS_IO_CREDENTIALS_KEYBINDING_ANNOTATION_PREFIX = "jenkins.io/credentials-keybinding-";
 
     static final String JENKINS_IO_CREDENTIALS_TYPE_LABEL = "jenkins.io/credentials-type";
 
@@ -69,6 +69,15 @@ public abstract class SecretUtils {
     /** Optional annotation containing a list of job folders this credential is available to */
     static final String JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION = "jenkins.io/credentials-store-locations";
 
+    /**
+     * Largest decoded value (in bytes) whose scratch buffers are kept for reuse by the decoding thread.
+     * Anything bigger is decoded into throw away buffers so a single large secret does not pin memory for the life of the thread.
+     */
+    private static final int MAX_RETAINED_SCRATCH_BYTES = 16 * 1024;
+
+    /** Per thread decoder and buffers used by {@link #base64DecodeToString(String)} */
+    private static final ThreadLocal<DecodeScratch> DECODE_SCRATCH = ThreadLocal.withInitial(DecodeScratch::new);
+
     /**
      * Convert a String representation of the base64 encoded bytes of a UTF-8 String back to a String. 
      * @param s the base64 encoded String representation of the bytes.
@@ -77,16 +86,38 @@ public abstract class SecretUtils {
     @CheckForNull
     @Restricted(NoExternalUse.class) // API is not yet concrete
     public static String base64DecodeToString(String s) {
-        byte[] bytes = base64Decode(s);
-        if (bytes != null) {
-            try {
-                CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
-                decoder.onMalformedInput(CodingErrorAction.REPORT);
-                decoder.onUnmappableCharacter(CodingErrorAction.REPORT);
-                CharBuffer decode = decoder.decode(ByteBuffer.wrap(bytes));
-                return decode.toString();
-            } catch (CharacterCodingException ex) {
-                LOG.log(Level.WARNING, "failed to covert Secret, is this a valid UTF-8 string?  {0}", ex.getMessage());
+        DecodeScratch scratch = DECODE_SCRATCH.get();
+        // base64 is pure ASCII, anything else will be rejected by the decoder
+        byte[] encoded = s.getBytes(StandardCharsets.ISO_8859_1);
+        // an upper bound of the decoded size, padding can only make it smaller
+        int maxDecodedLength = (encoded.length / 4) * 3 + 3;
+        byte[] bytes = scratch.bytes(maxDecodedLength);
+        int dirtyBytes = maxDecodedLength;
+        CharBuffer chars = null;
+        try {
+            int length = Base64.getDecoder().decode(encoded, bytes);
+            dirtyBytes = length;
+            // UTF-8 never decodes to more chars than there are bytes
+            chars = scratch.chars(length);
+            CharsetDecoder decoder = scratch.decoder.reset();
+            CoderResult result = decoder.decode(ByteBuffer.wrap(bytes, 0, length), chars, true);
+            if (!result.isError()) {
+                result = decoder.flush(chars);
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            chars.flip();
+            return chars.toString();
+        } catch (IllegalArgumentException ex) {
+            LOG.log(Level.WARNING, "failed to base64decode Secret, is the format valid?  {0}", ex.getMessage());
+        } catch (CharacterCodingException ex) {
+            LOG.log(Level.WARNING, "failed to covert Secret, is this a valid UTF-8 string?  {0}", ex.getMessage());
+        } finally {
+            // do not leave the plain text lying around in the reused buffers
+            Arrays.fill(bytes, 0, dirtyBytes, (byte) 0);
+            if (chars != null) {
+                Arrays.fill(chars.array(), 0, Math.max(chars.position(), chars.limit()), (char) 0);
             }
         }
         return null;
@@ -116,20 +147,7 @@ public abstract class SecretUtils {
      * @throws CredentialsConvertionException if scope is invalid.
      */
     public static CredentialsScope getCredentialScope(Secret s) throws CredentialsConvertionException {
-        CredentialsScope scope = CredentialsScope.GLOBAL;
-        String label = s.getMetadata().getLabels().get(JENKINS_IO_CREDENTIALS_SCOPE_LABEL);
-        if (label != null) {
-            if(!getCredentialItemScopes(s).isEmpty()) {
-                throw new CredentialsConvertionException(JENKINS_IO_CREDENTIALS_SCOPE_LABEL + " can not be combined with " +
-                        JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION);
-            }
-            try {
-                scope = CredentialsScope.valueOf(label.toUpperCase(Locale.ROOT));
-            } catch (IllegalArgumentException exception) {
-                throw new CredentialsConvertionException(JENKINS_IO_CREDENTIALS_SCOPE_LABEL + " is set to an invalid scope: " + label, exception);
-            }
-        }
-        return scope;
+        return ResolvedSecret.of(s).getCredentialScope();
     }
 
     /**
@@ -137,24 +155,124 @@ public abstract class SecretUtils {
      * Format of the annotation: "['thisIsJobA', 'thisIsJobB', 'thisIsJobC/thisIsJobD']"
      *
      * @param s the secret whose item-group scope we want to obtain.
-     * @return a set of all item-group scopes
+     * @return a set of all item-group scopes, empty if the annotation is malformed.
+     * @see #parseCredentialItemScopes(Secret)
      */
     public static Set<String> getCredentialItemScopes(Secret s) {
-        String itemListString = s.getMetadata().getAnnotations().get(SecretUtils.JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION);
+        try {
+            return parseCredentialItemScopes(s);
+        } catch (CredentialsConvertionException ex) {
+            LOG.log(Level.FINE, "Ignoring malformed item scopes of secret " + s.getMetadata().getName(), ex);
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Gets all item-group scopes from a secret, rejecting a malformed annotation.
+     * Format of the annotation: "['thisIsJobA', 'thisIsJobB', 'thisIsJobC/thisIsJobD']", a JSON array of strings
+     * ("["thisIsJobA", "thisIsJobB"]") is also accepted.
+     *
+     * @param s the secret whose item-group scope we want to obtain.
+     * @return a set of all item-group scopes
+     * @throws CredentialsConvertionException if the annotation is malformed.
+     */
+    public static Set<String> parseCredentialItemScopes(Secret s) throws CredentialsConvertionException {
+        Map<String, String> annotations = s.getMetadata().getAnnotations();
+        String itemListString = annotations == null ? null : annotations.get(SecretUtils.JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION);
         if (itemListString == null) {
             return Collections.emptySet();
         }
-        if(!itemListString.startsWith("[") || !itemListString.endsWith("]")) {
+        return parseItemScopes(itemListString);
+    }
+
+    /**
+     * Single pass parser for the {@value #JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION} annotation.
+     * Items are single or double quoted and separated by commas with optional whitespace, a backslash escapes the
+     * following character, or introduces a JSON unicode escape when followed by {@code u} and four hex digits.
+     */
+    static Set<String> parseItemScopes(String value) throws CredentialsConvertionException {
+        final int length = value.length();
+        int i = skipWhitespace(value, 0);
+        if (i == length || value.charAt(i) != '[') {
+            throw malformedItemScopes(value, "expected '[' at position " + i);
+        }
+        i = skipWhitespace(value, i + 1);
+        if (i < length && value.charAt(i) == ']') {
+            if (skipWhitespace(value, i + 1) != length) {
+                throw malformedItemScopes(value, "unexpected content after ']'");
+            }
             return Collections.emptySet();
         }
-        itemListString = itemListString.trim();
-        itemListString = itemListString.substring(1, itemListString.length()-1);
-
-        return Arrays.stream(itemListString.split(", "))
-                .filter(p -> !p.isEmpty())
-                .map(String::trim)
-                .map(p -> p.substring(1, p.length()-1))
-                .collect(Collectors.toSet());
+        Set<String> scopes = new LinkedHashSet<>();
+        StringBuilder item = new StringBuilder();
+        while (true) {
+            if (i == length) {
+                throw malformedItemScopes(value, "missing closing ']'");
+            }
+            char quote = value.charAt(i++);
+            if (quote != '\'' && quote != '"') {
+                throw malformedItemScopes(value, "expected a quoted item group at position " + (i - 1));
+            }
+            item.setLength(0);
+            while (true) {
+                if (i == length) {
+                    throw malformedItemScopes(value, "unterminated item group");
+                }
+                char c = value.charAt(i++);
+                if (c == quote) {
+                    break;
+                }
+                if (c == '\\') {
+                    if (i == length) {
+                        throw malformedItemScopes(value, "unterminated item group");
+                    }
+                    c = value.charAt(i++);
+                    if (c == 'u') {
+                        if (i + 4 > length) {
+                            throw malformedItemScopes(value, "invalid unicode escape at position " + (i - 2));
+                        }
+                        try {
+                            c = (char) Integer.parseInt(value.substring(i, i + 4), 16);
+                        } catch (NumberFormatException ex) {
+                            throw malformedItemScopes(value, "invalid unicode escape at position " + (i - 2));
+                        }
+                        i += 4;
+                    }
+                }
+                item.append(c);
+            }
+            if (item.length() == 0) {
+                throw malformedItemScopes(value, "empty item group at position " + (i - 2));
+            }
+            scopes.add(item.toString());
+            i = skipWhitespace(value, i);
+            if (i == length) {
+                throw malformedItemScopes(value, "missing closing ']'");
+            }
+            char separator = value.charAt(i++);
+            if (separator == ']') {
+                break;
+            }
+            if (separator != ',') {
+                throw malformedItemScopes(value, "expected ',' or ']' at position " + (i - 1));
+            }
+            i = skipWhitespace(value, i);
+        }
+        if (skipWhitespace(value, i) != length) {
+            throw malformedItemScopes(value, "unexpected content after ']'");
+        }
+        return Collections.unmodifiableSet(scopes);
+    }
+
+    private static int skipWhitespace(String value, int i) {
+        while (i < value.length() && Character.isWhitespace(value.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static CredentialsConvertionException malformedItemScopes(String value, String reason) {
+        return new CredentialsConvertionException(JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION + " is malformed (" + reason + "): " + value);
     }
 
     /**
@@ -247,8 +365,10 @@ public abstract class SecretUtils {
      */
     public static Optional<String> getOptionalSecretData(Secret s, String key, String exceptionMessage) throws CredentialsConvertionException {
         String mappedKey = getKeyName(s, key);
-        if (s.getData().containsKey(key) || s.getData().containsKey(mappedKey)) {
-            return Optional.of(getNonNullSecretData(s, key, exceptionMessage));
+        Map<String, String> data = s.getData();
+        if (data.containsKey(key) || data.containsKey(mappedKey)) {
+            // resolve the data directly rather than via getNonNullSecretData which would look up the mapping again
+            return Optional.of(requireNonNull(data.get(mappedKey), exceptionMessage, mappedKey));
         }
         return Optional.empty();
     }
@@ -261,6 +381,7 @@ public abstract class SecretUtils {
      * @param s the secret to inspect for a custom name.
      * @param key the name of the key we are looking for.
      * @return the custom mapping for the key or {@code key} (identical object) if there is no custom mapping.
+     * @see ResolvedSecret#getKeyName(String)
      */
     public static String getKeyName(Secret s, String key) {
         Map<String, String> annotations = s.getMetadata().getAnnotations();
@@ -281,4 +402,47 @@ public abstract class SecretUtils {
         }
         return key;
     }
+
+    /**
+     * Reusable per thread state for decoding base64 encoded UTF-8 secret data.
+     */
+    private static final class DecodeScratch {
+
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+        private byte[] bytes = new byte[256];
+
+        private CharBuffer chars = CharBuffer.allocate(256);
+
+        /**
+         * Obtain a byte buffer of at least the given size.
+         */
+        byte[] bytes(int size) {
+            if (size <= bytes.length) {
+                return bytes;
+            }
+            byte[] newBytes = new byte[size];
+            if (size <= MAX_RETAINED_SCRATCH_BYTES) {
+                bytes = newBytes;
+            }
+            return newBytes;
+        }
+
+        /**
+         * Obtain a cleared char buffer of at least the given size.
+         */
+        CharBuffer chars(int size) {
+            if (size <= chars.capacity()) {
+                chars.clear();
+                return chars;
+            }
+            CharBuffer newChars = CharBuffer.allocate(size);
+            if (size <= MAX_RETAINED_SCRATCH_BYTES) {
+                chars = newChars;
+            }
+            return newChars;
+        }
+    }
 }
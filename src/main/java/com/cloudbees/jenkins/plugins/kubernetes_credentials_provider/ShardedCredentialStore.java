@@ -0,0 +1,210 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+/**
+ * The credentials obtained from a cluster, sharded by the namespace they were obtained from.
+ * Each namespace has its own map of credentials keyed by credential ID, so relisting or dropping a namespace replaces or
+ * removes its shard as a whole without scanning (or contending with) the credentials of the other namespaces.
+ * Lookups compose the shards, in the order of precedence of their namespaces.
+ */
+final class ShardedCredentialStore {
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, KubernetesSourcedCredential>> shards = new ConcurrentHashMap<>();
+
+    /** The namespaces whose credentials take precedence, in order of precedence */
+    private volatile List<String> namespaceOrder = Collections.emptyList();
+
+    /** The shards in order of precedence, rebuilt whenever a shard is added, replaced or removed */
+    private volatile List<Map<String, KubernetesSourcedCredential>> orderedShards = Collections.emptyList();
+
+    @CheckForNull
+    KubernetesSourcedCredential get(String namespace, String credentialId) {
+        Map<String, KubernetesSourcedCredential> shard = shards.get(namespace);
+        return shard == null ? null : shard.get(credentialId);
+    }
+
+    void put(String namespace, String credentialId, KubernetesSourcedCredential credential) {
+        Map<String, KubernetesSourcedCredential> shard = shards.get(namespace);
+        if (shard == null) {
+            synchronized (this) {
+                shard = shards.computeIfAbsent(namespace, k -> new ConcurrentHashMap<>());
+                reorder();
+            }
+        }
+        shard.put(credentialId, credential);
+    }
+
+    void remove(String namespace, String credentialId) {
+        Map<String, KubernetesSourcedCredential> shard = shards.get(namespace);
+        if (shard != null) {
+            shard.remove(credentialId);
+        }
+    }
+
+    /**
+     * @return {@code true} if any credentials have been obtained from the namespace.
+     */
+    boolean hasCredentials(String namespace) {
+        Map<String, KubernetesSourcedCredential> shard = shards.get(namespace);
+        return shard != null && !shard.isEmpty();
+    }
+
+    boolean isEmpty() {
+        for (Map<String, KubernetesSourcedCredential> shard : shards.values()) {
+            if (!shard.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replace the shard of the namespace with the credentials of the same namespace in {@code source}.
+     * @param namespace the namespace to replace.
+     * @param source the store the credentials were listed into.
+     */
+    synchronized void replaceShard(String namespace, ShardedCredentialStore source) {
+        ConcurrentHashMap<String, KubernetesSourcedCredential> shard = source.shards.get(namespace);
+        if (shard == null) {
+            shards.remove(namespace);
+        } else {
+            shards.put(namespace, shard);
+        }
+        reorder();
+    }
+
+    /**
+     * Replace all the shards with the shards of {@code source}.
+     */
+    synchronized void replaceAll(ShardedCredentialStore source) {
+        shards.keySet().retainAll(source.shards.keySet());
+        shards.putAll(source.shards);
+        reorder();
+    }
+
+    synchronized void removeShard(String namespace) {
+        shards.remove(namespace);
+        reorder();
+    }
+
+    synchronized void clear() {
+        shards.clear();
+        reorder();
+    }
+
+    /**
+     * Set the order of precedence of the namespaces, used when the same credential ID is found in several of them.
+     * Namespaces that are not listed come after those that are, ordered by name.
+     * @param namespaces the configured namespaces, in order of precedence.
+     */
+    synchronized void setNamespaceOrder(List<String> namespaces) {
+        namespaceOrder = List.copyOf(namespaces);
+        reorder();
+    }
+
+    private void reorder() {
+        List<String> _namespaceOrder = namespaceOrder;
+        List<String> namespaces = new ArrayList<>(shards.keySet());
+        namespaces.sort(Comparator.comparingInt((String namespace) -> {
+            int index = _namespaceOrder.indexOf(namespace);
+            return index < 0 ? Integer.MAX_VALUE : index;
+        }).thenComparing(Comparator.naturalOrder()));
+        List<Map<String, KubernetesSourcedCredential>> ordered = new ArrayList<>(namespaces.size());
+        for (String namespace : namespaces) {
+            ordered.add(Collections.unmodifiableMap(shards.get(namespace)));
+        }
+        orderedShards = Collections.unmodifiableList(ordered);
+    }
+
+    /**
+     * @return the credentials of each namespace keyed by credential ID, in the order of precedence of the namespaces.
+     */
+    List<Map<String, KubernetesSourcedCredential>> getShards() {
+        return orderedShards;
+    }
+
+    /**
+     * @return the namespaces that credentials have been obtained from.
+     */
+    Collection<String> getNamespaces() {
+        return Collections.unmodifiableSet(shards.keySet());
+    }
+
+    /**
+     * @return the credentials of the namespace.
+     */
+    Collection<KubernetesSourcedCredential> getCredentials(String namespace) {
+        Map<String, KubernetesSourcedCredential> shard = shards.get(namespace);
+        return shard == null ? Collections.emptyList() : Collections.unmodifiableCollection(shard.values());
+    }
+
+    /**
+     * @return a read only view of the credentials of all the namespaces in the order of precedence of the namespaces.
+     * It iterates the shards in place without copying them, so like theirs its iteration is weakly consistent.
+     */
+    Iterable<KubernetesSourcedCredential> getCredentials() {
+        List<Map<String, KubernetesSourcedCredential>> _orderedShards = orderedShards;
+        return () -> new Iterator<KubernetesSourcedCredential>() {
+            private final Iterator<Map<String, KubernetesSourcedCredential>> shardIterator = _orderedShards.iterator();
+            private Iterator<KubernetesSourcedCredential> credentialIterator = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!credentialIterator.hasNext() && shardIterator.hasNext()) {
+                    credentialIterator = shardIterator.next().values().iterator();
+                }
+                return credentialIterator.hasNext();
+            }
+
+            @Override
+            public KubernetesSourcedCredential next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return credentialIterator.next();
+            }
+        };
+    }
+
+    int size() {
+        int size = 0;
+        for (Map<String, KubernetesSourcedCredential> shard : shards.values()) {
+            size += shard.size();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import io.fabric8.kubernetes.api.model.Secret;
+
+/**
+ * The time taken by each phase of starting to watch the secrets of a cluster, so that slow startups can be diagnosed
+ * and compared between versions.
+ * The list phase covers the LIST requests along with decoding their responses, which the client does as it reads them,
+ * and excludes the conversion of the secrets which is timed separately.
+ * When the secrets are streamed with {@link KubernetesCredentialProvider#WATCH_LIST} they are received after the startup
+ * and are not included.
+ * Namespaces whose LIST is throttled by {@link ListRateLimiter} are listed after the cluster has otherwise started, and
+ * are included once they have been; the startup is in progress until then.
+ */
+public final class StartupTimings {
+
+    /**
+     * The phases of a startup.
+     */
+    public enum Phase {
+        /** Creating the Kubernetes client */
+        CLIENT,
+        /** Listing the secrets, including decoding the responses */
+        LIST,
+        /** Converting the secrets to credentials */
+        CONVERSION,
+        /** Registering the watches */
+        WATCH
+    }
+
+    private final String cluster;
+    private final long startedAt = System.currentTimeMillis();
+    private final long start = System.nanoTime();
+
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private int namespaces;
+    private int secrets;
+    private long secretBytes;
+    private long durationNanos = -1;
+    /** The LISTs deferred by throttling that have not been made yet */
+    private int deferredLists;
+    private boolean finished;
+
+    StartupTimings(String cluster) {
+        this.cluster = cluster;
+    }
+
+    /**
+     * Add the time spent in a phase.
+     */
+    synchronized void record(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Record that a namespace has been listed.
+     * @param listNanos the time taken to list the namespace, including the conversion of its secrets.
+     */
+    synchronized void listed(long listNanos) {
+        namespaces++;
+        phaseNanos[Phase.LIST.ordinal()] += listNanos;
+    }
+
+    /**
+     * Record that listed secrets have been converted.
+     */
+    synchronized void converted(Collection<Secret> converted, long nanos) {
+        secrets += converted.size();
+        for (Secret secret : converted) {
+            secretBytes += CredentialSizes.dataSize(secret);
+        }
+        phaseNanos[Phase.CONVERSION.ordinal()] += nanos;
+    }
+
+    /**
+     * Record that the LIST of a namespace has been throttled, so the startup does not finish until it has been made.
+     * @see #deferredListDone
+     */
+    synchronized void listDeferred() {
+        deferredLists++;
+    }
+
+    /**
+     * Record that a throttled LIST has been made, or given up on.
+     * @return {@code true} if this completed the startup.
+     */
+    synchronized boolean deferredListDone() {
+        deferredLists--;
+        return complete();
+    }
+
+    /**
+     * Record that the startup itself is over, although it remains in progress until the throttled LISTs have been made.
+     */
+    synchronized void finish() {
+        finished = true;
+        complete();
+    }
+
+    private boolean complete() {
+        if (!finished || deferredLists > 0 || durationNanos >= 0) {
+            return false;
+        }
+        durationNanos = System.nanoTime() - start;
+        return true;
+    }
+
+    public String getCluster() {
+        return cluster;
+    }
+
+    /**
+     * @return when the startup began, in milliseconds since the epoch.
+     */
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * @return when the startup began, for formatting in views.
+     */
+    public Date getStartedAtDate() {
+        return new Date(startedAt);
+    }
+
+    /**
+     * @return the time spent in the phase, in milliseconds.
+     */
+    public synchronized long getPhaseMillis(Phase phase) {
+        long nanos = phaseNanos[phase.ordinal()];
+        if (phase == Phase.LIST) {
+            // the secrets are converted as the pages are received
+            nanos = Math.max(0, nanos - phaseNanos[Phase.CONVERSION.ordinal()]);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * @return the total duration of the startup in milliseconds, or {@code -1} if it is still in progress.
+     */
+    public synchronized long getDurationMillis() {
+        return durationNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    /**
+     * @return the number of namespaces listed.
+     */
+    public synchronized int getNamespaces() {
+        return namespaces;
+    }
+
+    /**
+     * @return the number of secrets listed and converted.
+     */
+    public synchronized int getSecrets() {
+        return secrets;
+    }
+
+    /**
+     * @return the estimated size of the data of the secrets listed and converted, in bytes.
+     */
+    public synchronized long getSecretBytes() {
+        return secretBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(cluster).append(" started at ").append(Instant.ofEpochMilli(startedAt)).append(':');
+        for (Phase phase : Phase.values()) {
+            sb.append(' ').append(phase.name().toLowerCase(Locale.ENGLISH)).append('=').append(getPhaseMillis(phase)).append("ms");
+        }
+        sb.append(" total=").append(getDurationMillis()).append("ms");
+        sb.append(" namespaces=").append(namespaces).append(" secrets=").append(secrets).append(" bytes=").append(secretBytes);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2024 CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+/**
+ * A fixed size log of the most recent watch events and reconnects, to see what happened when credentials are missing
+ * or stale. Only the metadata of the secrets is recorded, never their data.
+ * Recording is lock free, the oldest entries being overwritten, so the log is always on.
+ */
+final class WatchEventLog {
+
+    /** The number of events kept, rounded up to a power of two */
+    static final String SIZE = KubernetesCredentialProvider.class.getName() + ".watchEventLogSize";
+
+    /** The action recorded when a watch closes unexpectedly and is restarted */
+    static final String RECONNECT = "RECONNECT";
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+    private final AtomicLong next = new AtomicLong();
+
+    WatchEventLog(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        entries = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+    }
+
+    static WatchEventLog fromSystemProperties() {
+        return new WatchEventLog(Math.min(1 << 16, Integer.getInteger(SIZE, 256)));
+    }
+
+    int getCapacity() {
+        return entries.length();
+    }
+
+    /**
+     * Record an event.
+     * @param action the action of the event, or {@link #RECONNECT}.
+     * @param id the name of the secret, {@code null} for a reconnect.
+     * @param resourceVersion the resourceVersion of the event, if any.
+     * @param durationNanos the time taken to process the event.
+     */
+    void record(String cluster, String namespace, String action, @CheckForNull String id, @CheckForNull String resourceVersion, long durationNanos) {
+        long sequence = next.getAndIncrement();
+        entries.set((int) (sequence & mask), new Entry(sequence, System.currentTimeMillis(), cluster, namespace, action, id, resourceVersion, durationNanos));
+    }
+
+    /**
+     * @return the recorded events, the most recent first.
+     */
+    List<Entry> getEntries() {
+        long last = next.get() - 1;
+        List<Entry> snapshot = new ArrayList<>(entries.length());
+        for (long sequence = last; sequence >= 0 && sequence > last - entries.length(); sequence--) {
+            Entry entry = entries.get((int) (sequence & mask));
+            // an entry may have been overwritten by a more recent one, or not yet written by a concurrent writer
+            if (entry != null && entry.sequence == sequence) {
+                snapshot.add(entry);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * A recorded event.
+     */
+    public static final class Entry {
+
+        private final long sequence;
+        private final long timestamp;
+        private final String cluster;
+        private final String namespace;
+        private final String action;
+        @CheckForNull
+        private final String id;
+        @CheckForNull
+        private final String resourceVersion;
+        private final long durationNanos;
+
+        Entry(long sequence, long timestamp, String cluster, String namespace, String action, @CheckForNull String id,
+              @CheckForNull String resourceVersion, long durationNanos) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.cluster = cluster;
+            this.namespace = namespace;
+            this.action = action;
+            this.id = id;
+            this.resourceVersion = resourceVersion;
+            this.durationNanos = durationNanos;
+        }
+
+        /**
+         * @return when the event was recorded, in milliseconds since the epoch.
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return when the event was recorded, for formatting in views.
+         */
+        public Date getTimestampDate() {
+            return new Date(timestamp);
+        }
+
+        public String getCluster() {
+            return cluster;
+        }
+
+        public String getNamespace() {
+            return namespace;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        @CheckForNull
+        public String getId() {
+            return id;
+        }
+
+        @CheckForNull
+        public String getResourceVersion() {
+            return resourceVersion;
+        }
+
+        /**
+         * @return the time taken to process the event, in microseconds.
+         */
+        public long getDurationMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(durationNanos);
+        }
+
+        @Override
+        public String toString() {
+            return Instant.ofEpochMilli(timestamp) + " " + cluster + "/" + namespace + " " + action
+                    + (id == null ? "" : " " + id) + (resourceVersion == null ? "" : " resourceVersion=" + resourceVersion)
+                    + " " + getDurationMicros() + "us";
+        }
+    }
+}
@@ -24,10 +24,13 @@
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
 import io.fabric8.kubernetes.api.model.Secret;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 import com.cloudbees.jenkins.plugins.awscredentials.AWSCredentialsImpl;
 import org.jenkinsci.plugins.variant.OptionalExtension;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 
@@ -42,33 +45,40 @@ public class AWSCredentialsConvertor extends SecretToCredentialConverter {
         return "aws".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("aws");
+    }
+
     @Override
     public AWSCredentialsImpl convert(Secret secret) throws CredentialsConvertionException {
 
         SecretUtils.requireNonNull(secret.getData(), "aws definition contains no data");
 
-        Optional<String> accessKeyBase64 = SecretUtils.getOptionalSecretData(secret, "accessKey", "aws credential is missing the accessKey");
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        Optional<String> accessKeyBase64 = resolved.getOptionalData("accessKey", "aws credential is missing the accessKey");
         String accessKey = null;
 
         if (accessKeyBase64.isPresent()){
             accessKey = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(accessKeyBase64.get()), "aws credential has an invalid accessKey (must be base64 encoded UTF-8)");
         }
 
-        Optional<String> secretKeyBase64 = SecretUtils.getOptionalSecretData(secret, "secretKey", "aws credential is missing the secretKey");
+        Optional<String> secretKeyBase64 = resolved.getOptionalData("secretKey", "aws credential is missing the secretKey");
         String secretKey = null;
 
         if (secretKeyBase64.isPresent()){
             secretKey = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(secretKeyBase64.get()), "aws credential has an invalid secretKey (must be base64 encoded UTF-8)");
         }
 
-        Optional<String> iamRoleArnBase64 = SecretUtils.getOptionalSecretData(secret, "iamRoleArn", "aws credential: failed to retrieve optional parameter iamRoleArn");
+        Optional<String> iamRoleArnBase64 = resolved.getOptionalData("iamRoleArn", "aws credential: failed to retrieve optional parameter iamRoleArn");
         String iamRoleArn = null;
 
         if (iamRoleArnBase64.isPresent()) {
             iamRoleArn = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(iamRoleArnBase64.get()), "aws credential has an invalid iamRoleArn (must be base64 encoded UTF-8)");
         }
 
-        Optional<String> iamMfaSerialNumberBase64 = SecretUtils.getOptionalSecretData(secret, "iamMfaSerialNumber", "aws credential: failed to retrieve optional parameter iamMfaSerialNumber");
+        Optional<String> iamMfaSerialNumberBase64 = resolved.getOptionalData("iamMfaSerialNumber", "aws credential: failed to retrieve optional parameter iamMfaSerialNumber");
         String iamMfaSerialNumber = null;
 
         if (iamMfaSerialNumberBase64.isPresent()) {
@@ -77,7 +87,7 @@ public class AWSCredentialsConvertor extends SecretToCredentialConverter {
 
         return new AWSCredentialsImpl(
                 // Scope
-                SecretUtils.getCredentialScope(secret),
+                resolved.getCredentialScope(),
                 // ID
                 SecretUtils.getCredentialId(secret),
                 // AccessKey
@@ -24,10 +24,13 @@
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
 import io.fabric8.kubernetes.api.model.Secret;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 import com.cloudbees.jenkins.plugins.sshcredentials.impl.BasicSSHUserPrivateKey;
 import org.jenkinsci.plugins.variant.OptionalExtension;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 
@@ -42,18 +45,25 @@ public class BasicSSHUserPrivateKeyCredentialsConvertor extends SecretToCredenti
         return "basicSSHUserPrivateKey".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("basicSSHUserPrivateKey");
+    }
+
     @Override
     public BasicSSHUserPrivateKey convert(Secret secret) throws CredentialsConvertionException {
 
         SecretUtils.requireNonNull(secret.getData(), "basicSSHUserPrivateKey definition contains no data");
 
-        String privateKeyBase64 = SecretUtils.getNonNullSecretData(secret, "privateKey", "basicSSHUserPrivateKey credential is missing the privateKey"); 
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String privateKeyBase64 = resolved.getNonNullData("privateKey", "basicSSHUserPrivateKey credential is missing the privateKey"); 
         String privateKey = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(privateKeyBase64), "basicSSHUserPrivateKey credential has an invalid privateKey (must be base64 encoded UTF-8)");
 
-        String usernameBase64 = SecretUtils.getNonNullSecretData(secret, "username", "basicSSHUserPrivateKey credential is missing the username");
+        String usernameBase64 = resolved.getNonNullData("username", "basicSSHUserPrivateKey credential is missing the username");
         String username = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(usernameBase64), "basicSSHUserPrivateKey credential has an invalid username (must be base64 encoded UTF-8)");
 
-        Optional<String> optPassphraseBase64 = SecretUtils.getOptionalSecretData(secret, "passphrase", "basicSSHUserPrivateKey credential: failed to retrieve passphrase, assuming private key has an empty passphrase");
+        Optional<String> optPassphraseBase64 = resolved.getOptionalData("passphrase", "basicSSHUserPrivateKey credential: failed to retrieve passphrase, assuming private key has an empty passphrase");
         String passphrase = null; 
 
         if (optPassphraseBase64.isPresent()) {
@@ -62,7 +72,7 @@ public class BasicSSHUserPrivateKeyCredentialsConvertor extends SecretToCredenti
 
         return new BasicSSHUserPrivateKey(
             // Scope
-            SecretUtils.getCredentialScope(secret),
+            resolved.getCredentialScope(),
             // ID
             SecretUtils.getCredentialId(secret),
             // Username
@@ -24,9 +24,12 @@
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
 import java.security.KeyStoreException;
+import java.util.Collections;
+import java.util.Set;
 import io.fabric8.kubernetes.api.model.Secret;
 import hudson.Extension;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 import com.cloudbees.plugins.credentials.SecretBytes;
@@ -43,22 +46,29 @@ public class CertificateCredentialsConvertor extends SecretToCredentialConverter
         return "certificate".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("certificate");
+    }
+
     @Override
     public CertificateCredentialsImpl convert(Secret secret) throws CredentialsConvertionException {
         // ensure we have some data
         SecretUtils.requireNonNull(secret.getData(), "certificate definition contains no data");
 
-        String passwordBase64 = SecretUtils.getNonNullSecretData(secret, "password", "certificate credential is missing the password entry");
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String passwordBase64 = resolved.getNonNullData("password", "certificate credential is missing the password entry");
 
         String password = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(passwordBase64), "certificate credential has an invalid password (must be base64 encoded UTF-8)");
 
-        String certBase64 = SecretUtils.getNonNullSecretData(secret, "certificate", "certificate credential is missing the certificate entry");
+        String certBase64 = resolved.getNonNullData("certificate", "certificate credential is missing the certificate entry");
 
         byte[] certData = SecretUtils.requireNonNull(SecretUtils.base64Decode(certBase64), "certificate credential has an invalid certificate (must be base64 encoded data)");
         SecretBytes sb = SecretBytes.fromBytes(certData);
 
         try {
-            CertificateCredentialsImpl certificateCredentialsImpl = new CertificateCredentialsImpl(SecretUtils.getCredentialScope(secret), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), password, new CertificateCredentialsImpl.UploadedKeyStoreSource(sb));
+            CertificateCredentialsImpl certificateCredentialsImpl = new CertificateCredentialsImpl(resolved.getCredentialScope(), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), password, new CertificateCredentialsImpl.UploadedKeyStoreSource(sb));
             if (certificateCredentialsImpl.getKeyStore().size() == 0) {
                 throw new CredentialsConvertionException("certificate credential has an invalid certificate (encoded data is not a valid PKCS#12 format certificate understood by Java)");
             }
@@ -23,7 +23,10 @@
  */
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
+import java.util.Collections;
+import java.util.Set;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 import io.fabric8.kubernetes.api.model.Secret;
@@ -38,23 +41,30 @@ public class DockerServerCredentialsConvertor extends SecretToCredentialConverte
         return "x509ClientCert".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("x509ClientCert");
+    }
+
     @Override
     public DockerServerCredentials convert(Secret secret) throws CredentialsConvertionException {
 
         SecretUtils.requireNonNull(secret.getData(), "X.509 client certificate definition contains no data");
 
-        String clientCertificateBase64 = SecretUtils.getNonNullSecretData(secret, "clientCertificate", "X.509 client certificate is missing the clientCertificate entry");
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String clientCertificateBase64 = resolved.getNonNullData("clientCertificate", "X.509 client certificate is missing the clientCertificate entry");
         String clientCertificate = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(clientCertificateBase64), "X.509 client certificate has an invalid clientCertificate entry (must be base64 encoded UTF-8)");
 
-        String clientKeySecretBase64 = SecretUtils.getNonNullSecretData(secret, "clientKeySecret", "X.509 client certificate is missing the clientKeySecret entry");
+        String clientKeySecretBase64 = resolved.getNonNullData("clientKeySecret", "X.509 client certificate is missing the clientKeySecret entry");
         String clientKeySecret = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(clientKeySecretBase64), "X.509 client certificate has an invalid clientKeySecret entry (must be base64 encoded UTF-8)");
 
-        String serverCaCertificateBase64 = SecretUtils.getNonNullSecretData(secret, "serverCaCertificate", "X.509 client certificate is missing the serverCaCertificate entry");
+        String serverCaCertificateBase64 = resolved.getNonNullData("serverCaCertificate", "X.509 client certificate is missing the serverCaCertificate entry");
         String serverCaCertificate = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(serverCaCertificateBase64), "X.509 client certificate has an invalid serverCaCertificate entry (must be base64 encoded UTF-8)");
 
         return new DockerServerCredentials(
                 // scope
-                SecretUtils.getCredentialScope(secret),
+                resolved.getCredentialScope(),
                 // id
                 SecretUtils.getCredentialId(secret),
                 // description
@@ -23,10 +23,13 @@
  */
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
+import java.util.Collections;
+import java.util.Set;
 import io.fabric8.kubernetes.api.model.Secret;
 import org.jenkinsci.plugins.plaincredentials.impl.FileCredentialsImpl;
 import org.jenkinsci.plugins.variant.OptionalExtension;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 import com.cloudbees.plugins.credentials.SecretBytes;
@@ -43,21 +46,28 @@ public class FileCredentialsConvertor extends SecretToCredentialConverter {
         return "secretFile".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("secretFile");
+    }
+
     @Override
     public FileCredentialsImpl convert(Secret secret) throws CredentialsConvertionException {
         // check we have some data
         SecretUtils.requireNonNull(secret.getData(), "secretFile definition contains no data");
 
-        String filenameBase64 = SecretUtils.getNonNullSecretData(secret, "filename", "secretFile credential is missing the filename"); 
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String filenameBase64 = resolved.getNonNullData("filename", "secretFile credential is missing the filename"); 
 
-        String dataBase64 = SecretUtils.getNonNullSecretData(secret, "data", "secretFile credential is missing the data");
+        String dataBase64 = resolved.getNonNullData("data", "secretFile credential is missing the data");
 
         String filename = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(filenameBase64), "secretFile credential has an invalid filename (must be base64 encoded UTF-8)");
 
         byte[] _data = SecretUtils.requireNonNull(SecretUtils.base64Decode(dataBase64), "secretFile credential has an invalid data (must be base64 encoded data)");
 
         SecretBytes sb = SecretBytes.fromBytes(_data);
-        return new FileCredentialsImpl(SecretUtils.getCredentialScope(secret), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), filename, sb);
+        return new FileCredentialsImpl(resolved.getCredentialScope(), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), filename, sb);
 
     }
 
@@ -24,14 +24,17 @@
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 import io.fabric8.kubernetes.api.model.Secret;
 import org.jenkinsci.plugins.github_branch_source.GitHubAppCredentials;
 import org.jenkinsci.plugins.github_branch_source.app_credentials.AccessSpecifiedRepositories;
 import org.jenkinsci.plugins.variant.OptionalExtension;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * SecretToCredentialConvertor that converts {@link GitHubAppCredentials}.
@@ -44,25 +47,32 @@ public class GitHubAppCredentialsConvertor extends SecretToCredentialConverter {
         return "gitHubApp".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("gitHubApp");
+    }
+
     @Override
     public GitHubAppCredentials convert(Secret secret) throws CredentialsConvertionException {
         SecretUtils.requireNonNull(secret.getData(), "gitHubApp definition contains no data");
 
-        String appIDBase64 = SecretUtils.getNonNullSecretData(secret, "appID", "gitHubApp credential is missing the appID");
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String appIDBase64 = resolved.getNonNullData("appID", "gitHubApp credential is missing the appID");
 
-        String privateKeyBase64 = SecretUtils.getNonNullSecretData(secret, "privateKey", "gitHubApp credential is missing the privateKey");
+        String privateKeyBase64 = resolved.getNonNullData("privateKey", "gitHubApp credential is missing the privateKey");
 
-        Optional<String> ownerBase64 = SecretUtils.getOptionalSecretData(secret, "owner", "gitHubApp credential is missing the owner");
+        Optional<String> ownerBase64 = resolved.getOptionalData("owner", "gitHubApp credential is missing the owner");
 
         String appID = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(appIDBase64), "gitHubApp credential has an invalid appID (must be base64 encoded UTF-8)");
 
-        Optional<String> apiUriBase64 = SecretUtils.getOptionalSecretData(secret, "apiUri", "gitHubApp credential is missing the apiUri");
+        Optional<String> apiUriBase64 = resolved.getOptionalData("apiUri", "gitHubApp credential is missing the apiUri");
 
         String privateKey = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(privateKeyBase64), "gitHubApp credential has an invalid privateKey (must be base64 encoded data)");
 
         hudson.util.Secret privateKeySecret = hudson.util.Secret.fromString(privateKey);
 
-        GitHubAppCredentials credentials = new GitHubAppCredentials(SecretUtils.getCredentialScope(secret), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), appID, privateKeySecret);
+        GitHubAppCredentials credentials = new GitHubAppCredentials(resolved.getCredentialScope(), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), appID, privateKeySecret);
 
         // TODO: Offer configuration options comparable to https://github.com/jenkinsci/github-branch-source-plugin/pull/822
         if (ownerBase64.isPresent()) {
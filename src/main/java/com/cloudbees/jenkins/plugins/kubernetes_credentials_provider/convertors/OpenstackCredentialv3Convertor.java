@@ -23,7 +23,10 @@
  */
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
+import java.util.Collections;
+import java.util.Set;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 
@@ -45,26 +48,33 @@ public class OpenstackCredentialv3Convertor extends SecretToCredentialConverter
         return "openstackCredentialv3".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("openstackCredentialv3");
+    }
+
     @Override
     public OpenstackCredentialv3 convert(Secret secret) throws CredentialsConvertionException {
         SecretUtils.requireNonNull(secret.getData(), "openstackCredentialv3 definition contains no data");
 
-        String userNameBase64 = SecretUtils.getNonNullSecretData(secret, "userName", "openstackCredentialv3 credential is missing the userName");
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String userNameBase64 = resolved.getNonNullData("userName", "openstackCredentialv3 credential is missing the userName");
         String userName = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(userNameBase64), "openstackCredentialv3 credential has an invalid userName (must be base64 encoded UTF-8)");
 
-        String userDomainBase64 = SecretUtils.getNonNullSecretData(secret, "userDomain", "openstackCredentialv3 credential is missing the userDomain");
+        String userDomainBase64 = resolved.getNonNullData("userDomain", "openstackCredentialv3 credential is missing the userDomain");
         String userDomain = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(userDomainBase64), "openstackCredentialv3 credential has an invalid userDomain (must be base64 encoded UTF-8)");
 
-        String projectNameBase64 = SecretUtils.getNonNullSecretData(secret, "projectName", "openstackCredentialv3 credential is missing the projectName");
+        String projectNameBase64 = resolved.getNonNullData("projectName", "openstackCredentialv3 credential is missing the projectName");
         String projectName = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(projectNameBase64), "openstackCredentialv3 credential has an invalid projectName (must be base64 encoded UTF-8)");
 
-        String projectDomainBase64 = SecretUtils.getNonNullSecretData(secret, "projectDomain", "openstackCredentialv3 credential is missing the projectDomain");
+        String projectDomainBase64 = resolved.getNonNullData("projectDomain", "openstackCredentialv3 credential is missing the projectDomain");
         String projectDomain = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(projectDomainBase64), "openstackCredentialv3 credential has an invalid projectDomain (must be base64 encoded UTF-8)");
 
-        String passwordBase64 = SecretUtils.getNonNullSecretData(secret, "password", "openstackCredentialv3 credential is missing the password");
+        String passwordBase64 = resolved.getNonNullData("password", "openstackCredentialv3 credential is missing the password");
         String password = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(passwordBase64), "openstackCredentialv3 credential has an invalid password (must be base64 encoded UTF-8)");
 
-        return new OpenstackCredentialv3(SecretUtils.getCredentialScope(secret), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), userName, userDomain, projectName, projectDomain, password);
+        return new OpenstackCredentialv3(resolved.getCredentialScope(), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), userName, userDomain, projectName, projectDomain, password);
 
     }
 
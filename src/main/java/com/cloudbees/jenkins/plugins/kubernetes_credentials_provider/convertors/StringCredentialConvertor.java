@@ -23,10 +23,13 @@
  */
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
+import java.util.Collections;
+import java.util.Set;
 import io.fabric8.kubernetes.api.model.Secret;
 import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
 import org.jenkinsci.plugins.variant.OptionalExtension;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
@@ -42,16 +45,23 @@ public class StringCredentialConvertor extends SecretToCredentialConverter {
         return "secretText".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("secretText");
+    }
+
     @Override
     public StringCredentialsImpl convert(Secret secret) throws CredentialsConvertionException {
         // ensure we have some data
         SecretUtils.requireNonNull(secret.getData(), "secretText kubernetes definition contains no data");
 
-        String textBase64 = SecretUtils.getNonNullSecretData(secret, "text", "secretText credential is missing the text");
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String textBase64 = resolved.getNonNullData("text", "secretText credential is missing the text");
 
         String secretText = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(textBase64), "secretText credential has an invalid text (must be base64 encoded UTF-8)");
 
-        return new StringCredentialsImpl(SecretUtils.getCredentialScope(secret), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), hudson.util.Secret.fromString(secretText));
+        return new StringCredentialsImpl(resolved.getCredentialScope(), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), hudson.util.Secret.fromString(secretText));
     }
 
 }
@@ -23,10 +23,13 @@
  */
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
+import java.util.Collections;
+import java.util.Set;
 import hudson.model.Descriptor;
 import io.fabric8.kubernetes.api.model.Secret;
 import hudson.Extension;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
@@ -42,20 +45,27 @@ public class UsernamePasswordCredentialsConvertor extends SecretToCredentialConv
         return "usernamePassword".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("usernamePassword");
+    }
+
     @Override
     public UsernamePasswordCredentialsImpl convert(Secret secret) throws CredentialsConvertionException {
         SecretUtils.requireNonNull(secret.getData(), "usernamePassword definition contains no data");
 
-        String usernameBase64 = SecretUtils.getNonNullSecretData(secret, "username", "usernamePassword credential is missing the username");
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String usernameBase64 = resolved.getNonNullData("username", "usernamePassword credential is missing the username");
 
-        String passwordBase64 = SecretUtils.getNonNullSecretData(secret, "password", "usernamePassword credential is missing the password");
+        String passwordBase64 = resolved.getNonNullData("password", "usernamePassword credential is missing the password");
 
         String username = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(usernameBase64), "usernamePassword credential has an invalid username (must be base64 encoded UTF-8)");
 
         String password = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(passwordBase64), "usernamePassword credential has an invalid password (must be base64 encoded UTF-8)");
 
         try {
-            return new UsernamePasswordCredentialsImpl(SecretUtils.getCredentialScope(secret), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), username, password);
+            return new UsernamePasswordCredentialsImpl(resolved.getCredentialScope(), SecretUtils.getCredentialId(secret), SecretUtils.getCredentialDescription(secret), username, password);
         }
         catch (Descriptor.FormException e) {
             throw new CredentialsConvertionException("Error creating UsernamePasswordCredentialsImpl", e);
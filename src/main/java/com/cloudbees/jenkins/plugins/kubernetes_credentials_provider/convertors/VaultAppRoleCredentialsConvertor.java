@@ -23,9 +23,12 @@
  */
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 import com.datapipe.jenkins.vault.credentials.VaultAppRoleCredential;
@@ -43,14 +46,21 @@ public class VaultAppRoleCredentialsConvertor extends SecretToCredentialConverte
         return "vaultAppRole".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("vaultAppRole");
+    }
+
     @Override
     public VaultAppRoleCredential convert(Secret secret) throws CredentialsConvertionException {
         SecretUtils.requireNonNull(secret.getData(), "vaultAppRole definition contains no data");
 
-        String roleIdBase64 = SecretUtils.getNonNullSecretData(secret, "roleId", "vaultAppRole credential is missing the roleId");
-        String secretIdBase64 = SecretUtils.getNonNullSecretData(secret, "secretId", "vaultAppRole credential is missing the secretId");
-        Optional<String> pathBase64 = SecretUtils.getOptionalSecretData(secret, "path", "vaultAppRole credential is missing the path");
-        Optional<String> namespaceBase64 = SecretUtils.getOptionalSecretData(secret, "namespace", "vaultAppRole credential is missing the namespace");
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String roleIdBase64 = resolved.getNonNullData("roleId", "vaultAppRole credential is missing the roleId");
+        String secretIdBase64 = resolved.getNonNullData("secretId", "vaultAppRole credential is missing the secretId");
+        Optional<String> pathBase64 = resolved.getOptionalData("path", "vaultAppRole credential is missing the path");
+        Optional<String> namespaceBase64 = resolved.getOptionalData("namespace", "vaultAppRole credential is missing the namespace");
 
         String roleId = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(roleIdBase64), "vaultAppRole credential has an invalid roleId (must be base64 encoded UTF-8)");
         String secretId = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(secretIdBase64), "vaultAppRole credential has an invalid secretId (must be base64 encoded UTF-8)");
@@ -59,7 +69,7 @@ public class VaultAppRoleCredentialsConvertor extends SecretToCredentialConverte
             path = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(pathBase64.get()), "vaultAppRole credential has an invalid path (must be base64 encoded UTF-8)");
         }
 
-        VaultAppRoleCredential cred = new VaultAppRoleCredential(SecretUtils.getCredentialScope(secret),
+        VaultAppRoleCredential cred = new VaultAppRoleCredential(resolved.getCredentialScope(),
                 SecretUtils.getCredentialId(secret),
                 SecretUtils.getCredentialDescription(secret),
                 roleId,
@@ -23,9 +23,12 @@
  */
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
 
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 import com.datapipe.jenkins.vault.credentials.VaultGithubTokenCredential;
@@ -43,17 +46,24 @@ public class VaultGitHubTokenCredentialsConvertor extends SecretToCredentialConv
         return "vaultGitHubToken".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("vaultGitHubToken");
+    }
+
     @Override
     public VaultGithubTokenCredential convert(Secret secret) throws CredentialsConvertionException {
         SecretUtils.requireNonNull(secret.getData(), "vaultGitHubToken definition contains no data");
 
-        String accessTokenBase64 = SecretUtils.getNonNullSecretData(secret, "accessToken", "vaultGitHubToken credential is missing the accessToken");
-        Optional<String> mountPathBase64 = SecretUtils.getOptionalSecretData(secret, "mountPath", "vaultGitHubToken credential is missing the mountPath");
-        Optional<String> namespaceBase64 = SecretUtils.getOptionalSecretData(secret, "namespace", "vaultGitHubToken credential is missing the namespace");
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String accessTokenBase64 = resolved.getNonNullData("accessToken", "vaultGitHubToken credential is missing the accessToken");
+        Optional<String> mountPathBase64 = resolved.getOptionalData("mountPath", "vaultGitHubToken credential is missing the mountPath");
+        Optional<String> namespaceBase64 = resolved.getOptionalData("namespace", "vaultGitHubToken credential is missing the namespace");
 
         String accessToken = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(accessTokenBase64), "vaultGitHubToken credential has an invalid accessToken (must be base64 encoded UTF-8)");
 
-        VaultGithubTokenCredential cred = new VaultGithubTokenCredential(SecretUtils.getCredentialScope(secret),
+        VaultGithubTokenCredential cred = new VaultGithubTokenCredential(resolved.getCredentialScope(),
                 SecretUtils.getCredentialId(secret),
                 SecretUtils.getCredentialDescription(secret),
                 hudson.util.Secret.fromString(accessToken));
@@ -24,7 +24,10 @@
 package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.convertors;
 
 
+import java.util.Collections;
+import java.util.Set;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.CredentialsConvertionException;
+import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.ResolvedSecret;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretToCredentialConverter;
 import com.cloudbees.jenkins.plugins.kubernetes_credentials_provider.SecretUtils;
 import com.datapipe.jenkins.vault.credentials.VaultTokenCredential;
@@ -42,15 +45,22 @@ public class VaultTokenCredentialsConvertor extends SecretToCredentialConverter
         return "vaultToken".equals(type);
     }
 
+    @Override
+    public Set<String> getSupportedTypes() {
+        return Collections.singleton("vaultToken");
+    }
+
     @Override
     public VaultTokenCredential convert(Secret secret) throws CredentialsConvertionException {
         SecretUtils.requireNonNull(secret.getData(), "vaultToken definition contains no data");
 
-        String tokenBase64 = SecretUtils.getNonNullSecretData(secret, "token", "vaultToken credential is missing the token");
+        ResolvedSecret resolved = ResolvedSecret.of(secret);
+
+        String tokenBase64 = resolved.getNonNullData("token", "vaultToken credential is missing the token");
 
         String token = SecretUtils.requireNonNull(SecretUtils.base64DecodeToString(tokenBase64), "vaultToken credential has an invalid token (must be base64 encoded UTF-8)");
 
-        return new VaultTokenCredential(SecretUtils.getCredentialScope(secret),
+        return new VaultTokenCredential(resolved.getCredentialScope(),
                 SecretUtils.getCredentialId(secret),
                 SecretUtils.getCredentialDescription(secret),
                 hudson.util.Secret.fromString(token));
@@ -0,0 +1,52 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import io.fabric8.kubernetes.client.http.AsyncBody;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.Interceptor;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ApiTrafficTest {
+
+    @Test
+    void verbs() {
+        assertThat(ApiTraffic.verb(request("GET", "/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")), is(ApiTraffic.Verb.LIST));
+        assertThat(ApiTraffic.verb(request("GET", "/api/v1/secrets?limit=500")), is(ApiTraffic.Verb.LIST));
+        assertThat(ApiTraffic.verb(request("GET", "/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&resourceVersion=1&watch=true")), is(ApiTraffic.Verb.WATCH));
+        assertThat(ApiTraffic.verb(request("GET", "/api/v1/namespaces/test/secrets/s1")), is(ApiTraffic.Verb.GET));
+        assertThat(ApiTraffic.verb(request("POST", "/api/v1/namespaces/test/secrets")), is(ApiTraffic.Verb.OTHER));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsRequestsAndResponseBytes() throws Exception {
+        ApiTraffic traffic = new ApiTraffic();
+        Interceptor interceptor = traffic.interceptor();
+        HttpRequest list = request("GET", "/api/v1/namespaces/test/secrets");
+        interceptor.before(null, list, null);
+        AsyncBody.Consumer<List<ByteBuffer>> consumer = mock(AsyncBody.Consumer.class);
+        List<ByteBuffer> body = List.of(ByteBuffer.wrap(new byte[100]), ByteBuffer.wrap(new byte[20]));
+        interceptor.consumer(consumer, list).consume(body, null);
+
+        verify(consumer).consume(body, null);
+        assertThat(traffic.getRequests(ApiTraffic.Verb.LIST), is(1L));
+        assertThat(traffic.getResponseBytes(ApiTraffic.Verb.LIST), is(120L));
+        assertThat(traffic.getRequests(ApiTraffic.Verb.WATCH), is(0L));
+    }
+
+    private static HttpRequest request(String method, String uri) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.method()).thenReturn(method);
+        when(request.uri()).thenReturn(URI.create("https://kubernetes.default.svc" + uri));
+        return request;
+    }
+}
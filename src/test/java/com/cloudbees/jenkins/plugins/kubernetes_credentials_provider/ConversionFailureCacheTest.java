@@ -0,0 +1,62 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+
+class ConversionFailureCacheTest {
+
+    @Test
+    void knownFailureUntilModified() {
+        ConversionFailureCache cache = new ConversionFailureCache();
+        Secret secret = secret("ns", "s1", "1");
+        assertThat(cache.isKnownFailure("ns", secret), is(false));
+
+        cache.record("ns", secret, "usernamePassword", "bad data");
+        assertThat(cache.isKnownFailure("ns", secret), is(true));
+        assertThat("same name in another namespace", cache.isKnownFailure("other", secret), is(false));
+        assertThat("modified secret", cache.isKnownFailure("ns", secret("ns", "s1", "2")), is(false));
+        assertThat("unknown resourceVersion", cache.isKnownFailure("ns", "s1", null), is(false));
+
+        cache.remove("ns", "s1");
+        assertThat(cache.isKnownFailure("ns", secret), is(false));
+    }
+
+    @Test
+    void removeNamespace() {
+        ConversionFailureCache cache = new ConversionFailureCache();
+        cache.record("ns1", secret("ns1", "s1", "1"), "usernamePassword", "bad data");
+        cache.record("ns2", secret("ns2", "s2", "1"), "usernamePassword", "bad data");
+
+        cache.removeNamespace("ns1");
+        assertThat(cache.getFailures(), contains(hasProperty("name", is("s2"))));
+
+        cache.removeNamespace(KubernetesCredentialProvider.ANY_NAMESPACE);
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    void bounded() {
+        ConversionFailureCache cache = new ConversionFailureCache();
+        for (int i = 0; i <= ConversionFailureCache.MAX_ENTRIES; i++) {
+            cache.record("ns", secret("ns", "s" + i, "1"), "usernamePassword", "bad data");
+        }
+        assertThat(cache.size(), is(ConversionFailureCache.MAX_ENTRIES));
+        assertThat("the eldest failure is evicted", cache.isKnownFailure("ns", "s0", "1"), is(false));
+    }
+
+    private static Secret secret(String namespace, String name, String resourceVersion) {
+        return new SecretBuilder()
+                .withNewMetadata()
+                .withNamespace(namespace)
+                .withName(name)
+                .withResourceVersion(resourceVersion)
+                .endMetadata()
+                .build();
+    }
+}
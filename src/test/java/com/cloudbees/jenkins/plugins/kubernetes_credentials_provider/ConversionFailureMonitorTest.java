@@ -0,0 +1,40 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConversionFailureMonitorTest {
+
+    @Test
+    void aggregatesFailures() {
+        KubernetesCredentialProvider provider = mock(KubernetesCredentialProvider.class);
+        when(provider.getConversionFailures()).thenReturn(Map.of(
+                "local", List.of(failure("ns1", "a", "usernamePassword", 1), failure("ns1", "b", "secretFile", 3)),
+                "remote", List.of(failure("ns1", "c", "usernamePassword", 2))));
+        ConversionFailureMonitor monitor = new ConversionFailureMonitor() {
+            @Override
+            KubernetesCredentialProvider getProvider() {
+                return provider;
+            }
+        };
+
+        assertThat(monitor.isActivated(), is(true));
+        assertThat(monitor.getCountsByType(), is(Map.of("usernamePassword", 2, "secretFile", 1)));
+        assertThat(monitor.getCountsByNamespace(), is(Map.of("local/ns1", 2, "remote/ns1", 1)));
+        assertThat("most recent first", monitor.getFailures().stream().map(f -> f.getFailure().getName()).toArray(), is(new Object[] {"b", "c", "a"}));
+
+        when(provider.getConversionFailures()).thenReturn(Map.of("local", List.of()));
+        assertThat(monitor.isActivated(), is(false));
+    }
+
+    private static ConversionFailureCache.Failure failure(String namespace, String name, String type, long timestamp) {
+        return new ConversionFailureCache.Failure(namespace, name, type, "1", "broken", timestamp);
+    }
+}
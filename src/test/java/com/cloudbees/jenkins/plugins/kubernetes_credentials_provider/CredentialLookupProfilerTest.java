@@ -0,0 +1,46 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.concurrent.TimeUnit;
+
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import hudson.model.ItemGroup;
+import org.jenkinsci.plugins.plaincredentials.StringCredentials;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CredentialLookupProfilerTest {
+
+    @Test
+    void disabledByDefault() {
+        assertThat(CredentialLookupProfiler.fromSystemProperties(), nullValue());
+    }
+
+    @Test
+    void recordsSampledLookups() {
+        CredentialLookupProfiler profiler = new CredentialLookupProfiler(1);
+        ItemGroup<?> folder = mock(ItemGroup.class);
+        when(folder.getFullName()).thenReturn("folder");
+
+        assertThat(profiler.sample(), is(true));
+        profiler.record(StringCredentials.class, folder, 2, TimeUnit.MICROSECONDS.toNanos(10));
+        assertThat(profiler.sample(), is(true));
+        profiler.record(StringCredentials.class, null, 4, TimeUnit.MICROSECONDS.toNanos(10));
+        assertThat(profiler.sample(), is(true));
+        profiler.record(StandardUsernamePasswordCredentials.class, folder, 0, TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertThat(profiler.getCallCount(), is(3L));
+        assertThat(profiler.getSampledCountsByType(), hasEntry(StringCredentials.class.getName(), 2L));
+        assertThat(profiler.getSampledCountsByType(), hasEntry(StandardUsernamePasswordCredentials.class.getName(), 1L));
+        assertThat(profiler.getAverageResultSizesByType().get(StringCredentials.class.getName()), closeTo(3.0, 0.001));
+        assertThat(profiler.getSampledCountsByItemGroup(), hasEntry("folder", 2L));
+        assertThat(profiler.getSampledCountsByItemGroup(), hasEntry("<null>", 1L));
+        assertThat(profiler.getSampledCountsByCaller(), hasEntry(getClass().getName() + ".recordsSampledLookups", 3L));
+    }
+}
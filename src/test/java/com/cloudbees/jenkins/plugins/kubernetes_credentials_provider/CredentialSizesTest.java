@@ -0,0 +1,99 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import com.cloudbees.plugins.credentials.common.IdCredentials;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CredentialSizesTest {
+
+    @AfterEach
+    void clearLimits() {
+        System.clearProperty(CredentialSizes.LIMIT_BYTES);
+        System.clearProperty(CredentialSizes.WARN_BYTES);
+    }
+
+    @Test
+    void dataSize() {
+        Secret secret = secret();
+        // 4 + 16 * 3 / 4, and 4 + 5
+        assertThat(CredentialSizes.dataSize(secret), is(25L));
+    }
+
+    @Test
+    void retainedSize() {
+        IdCredentials credential = mock(IdCredentials.class);
+        when(credential.getId()).thenReturn("an-id");
+        assertThat(CredentialSizes.retainedSize(secret(), credential), is(CredentialSizes.CREDENTIAL_OVERHEAD + 2 * 25 + 5));
+    }
+
+    @Test
+    void limit() {
+        assertDoesNotThrow(() -> CredentialSizes.fromSystemProperties().check(secret()));
+        System.setProperty(CredentialSizes.LIMIT_BYTES, "24");
+        CredentialSizes sizes = CredentialSizes.fromSystemProperties();
+        CredentialsConvertionException e = assertThrows(CredentialsConvertionException.class, () -> sizes.check(secret()));
+        assertThat(e.getMessage(), is("secret data of 25 bytes exceeds the limit of 24 bytes"));
+    }
+
+    @Test
+    void warnsOncePerVersion() throws Exception {
+        List<Level> levels = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                levels.add(record.getLevel());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(CredentialSizes.class.getName());
+        Level level = logger.getLevel();
+        logger.addHandler(handler);
+        logger.setLevel(Level.FINE);
+        try {
+            CredentialSizes sizes = new CredentialSizes(0, 24);
+            Secret secret = secret();
+            secret.getMetadata().setUid("uid");
+            secret.getMetadata().setResourceVersion("1");
+            sizes.check(secret);
+            sizes.check(secret);
+            secret.getMetadata().setResourceVersion("2");
+            sizes.check(secret);
+            assertThat(levels, contains(Level.WARNING, Level.FINE, Level.WARNING));
+        } finally {
+            logger.removeHandler(handler);
+            logger.setLevel(level);
+        }
+    }
+
+    private static Secret secret() {
+        return new SecretBuilder()
+                .withNewMetadata().withName("s1").endMetadata()
+                .addToData("data", "YWJjZGVmZ2hpamts")
+                .addToStringData("text", "hello")
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import hudson.util.ListBoxModel;
+import io.fabric8.kubernetes.client.Config;
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class KubernetesClientSettingsTest {
+
+    @AfterEach
+    void clearProperties() {
+        System.clearProperty(KubernetesClientSettings.REQUEST_TIMEOUT);
+        System.clearProperty(KubernetesClientSettings.HTTP2_DISABLE);
+    }
+
+    @Test
+    void configuredSettingsTakePrecedence() {
+        System.setProperty(KubernetesClientSettings.REQUEST_TIMEOUT, "1000");
+        KubernetesClientSettings settings = new KubernetesClientSettings();
+        settings.setRequestTimeout(2000);
+        settings.setWatchReconnectLimit(3);
+        settings.setHttp2Disable(true);
+
+        Config config = KubernetesClientSettings.apply(settings, new ConfigBuilder().build());
+        assertThat(config.getRequestTimeout(), is(2000));
+        assertThat(config.getWatchReconnectLimit(), is(3));
+        assertThat(config.isHttp2Disable(), is(true));
+    }
+
+    @Test
+    void systemPropertiesWhenNotConfigured() {
+        int defaultConnectionTimeout = new ConfigBuilder().build().getConnectionTimeout();
+        System.setProperty(KubernetesClientSettings.REQUEST_TIMEOUT, "1000");
+        System.setProperty(KubernetesClientSettings.HTTP2_DISABLE, "true");
+
+        Config config = KubernetesClientSettings.apply(null, new ConfigBuilder().build());
+        assertThat(config.getRequestTimeout(), is(1000));
+        assertThat(config.isHttp2Disable(), is(true));
+        assertThat("unset settings keep the client default", config.getConnectionTimeout(), is(defaultConnectionTimeout));
+    }
+
+    @Test
+    void defaultHttp2DisableStaysUnset() {
+        ListBoxModel items = new KubernetesClientSettings.DescriptorImpl().doFillHttp2DisableItems();
+        assertThat(items.get(0).value, is(KubernetesClientSettings.DEFAULT));
+
+        JSONObject formData = new JSONObject().element("requestTimeout", "").element("http2Disable", items.get(0).value);
+        KubernetesClientSettings.removeDefaults(formData);
+        assertThat("the default option is not bound to false", formData.has("http2Disable"), is(false));
+
+        formData = new JSONObject().element("http2Disable", items.get(2).value);
+        KubernetesClientSettings.removeDefaults(formData);
+        assertThat(formData.getString("http2Disable"), is("false"));
+    }
+
+    @Test
+    void settingsAreComparedByValue() {
+        KubernetesClientSettings settings = new KubernetesClientSettings();
+        settings.setRequestTimeout(2000);
+        KubernetesClientSettings same = new KubernetesClientSettings();
+        same.setRequestTimeout(2000);
+        assertThat(settings.equals(same), is(true));
+        same.setHttp2Disable(false);
+        assertThat("an explicit false differs from not configured", settings.equals(same), is(false));
+    }
+}
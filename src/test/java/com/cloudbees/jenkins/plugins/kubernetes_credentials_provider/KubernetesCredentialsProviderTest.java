@@ -12,8 +12,11 @@ import hudson.security.ACL;
 import io.fabric8.kubernetes.api.model.Secret;
 import io.fabric8.kubernetes.api.model.SecretBuilder;
 import io.fabric8.kubernetes.api.model.SecretListBuilder;
+import io.fabric8.kubernetes.api.model.StatusBuilder;
 import io.fabric8.kubernetes.api.model.WatchEvent;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watcher;
 import io.fabric8.kubernetes.client.WatcherException;
 import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
 import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
@@ -24,6 +27,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.jvnet.hudson.test.Issue;
 import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
@@ -31,6 +35,9 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -41,11 +48,16 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -173,6 +185,411 @@ class KubernetesCredentialsProviderTest {
         assertTrue(credentials.stream().anyMatch(c -> "s3".equals(((UsernamePasswordCredentialsImpl) c).getId())), "secret s3 exists");
     }
 
+    @Test
+    void startWatchingForSecretsIsolatesConversionFailures() {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        s2.getData().put("password", "this_is_invalid_base64!");
+        Secret s3 = createSecret("s3", (CredentialsScope) null);
+
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1, s2, s3)
+                        .build())
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+
+        KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+        provider.startWatchingForSecrets();
+
+        List<UsernamePasswordCredentials> credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+        assertThat("the corrupt secret (s2) does not prevent the others in its batch from being converted", credentials,
+                containsInAnyOrder(hasProperty("id", is("s1")), hasProperty("id", is("s3"))));
+    }
+
+    @Test
+    void startWatchingForSecretsRetriesOnlyUnreportedSecretsOfBrokenBatch() {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        Secret s3 = createSecret("s3", (CredentialsScope) null);
+
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1, s2, s3)
+                        .build())
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+
+        List<String> converted = new LinkedList<>();
+        ExtensionList<SecretToCredentialConverter> converters = ExtensionList.lookup(SecretToCredentialConverter.class);
+        converters.remove(converters.get(0));
+        converters.add(new UsernamePasswordCredentialsConvertor() {
+            @Override
+            public UsernamePasswordCredentialsImpl convert(Secret secret) throws CredentialsConvertionException {
+                converted.add(secret.getMetadata().getName());
+                return super.convert(secret);
+            }
+
+            @Override
+            public void convertAll(Collection<Secret> secrets, ConversionCallback callback) {
+                // reports the first secret and then breaks
+                Secret first = secrets.iterator().next();
+                try {
+                    callback.onSuccess(first, convert(first));
+                } catch (CredentialsConvertionException ex) {
+                    callback.onFailure(first, ex);
+                }
+                throw new IllegalStateException("broken batch");
+            }
+        });
+
+        KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+        provider.startWatchingForSecrets();
+
+        List<UsernamePasswordCredentials> credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+        assertThat(credentials, containsInAnyOrder(hasProperty("id", is("s1")), hasProperty("id", is("s2")), hasProperty("id", is("s3"))));
+        assertThat("the secret reported by the batch is not converted again", converted, contains("s1", "s2", "s3"));
+    }
+
+    @Test
+    void startWatchingForSecretsInMultipleNamespaces() throws InterruptedException {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        s1.getMetadata().setNamespace("ns1");
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        s2.getMetadata().setNamespace("ns2");
+
+        for (Secret s : List.of(s1, s2)) {
+            String namespace = s.getMetadata().getNamespace();
+            server.expect().withPath("/api/v1/namespaces/" + namespace + "/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                    .andReturn(200, new SecretListBuilder()
+                            .withNewMetadata()
+                            .withResourceVersion("1")
+                            .endMetadata()
+                            .addToItems(s)
+                            .build())
+                    .once();
+            server.expect().withPath("/api/v1/namespaces/" + namespace + "/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                    .andReturn(200, null).always();
+        }
+
+        try {
+            // ns3 is not mocked so will fail, which must not affect the other namespaces
+            System.setProperty(KubernetesCredentialProvider.NAMESPACES, "ns1, ns2,,ns3");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+
+            List<UsernamePasswordCredentials> credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+            assertThat("secrets from all the healthy namespaces are available", credentials,
+                    containsInAnyOrder(hasProperty("id", is("s1")), hasProperty("id", is("s2"))));
+            assertEquals(1, getInitAdministrativeMonitorCount(), "expect administrative error for ns3");
+            assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type", 0);
+        } finally {
+            System.clearProperty(KubernetesCredentialProvider.NAMESPACES);
+        }
+    }
+
+    @Test
+    void startWatchingForSecretsClusterScoped() throws InterruptedException {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        s1.getMetadata().setNamespace("ns1");
+        Secret s1InOtherNamespace = createSecret("s1", (CredentialsScope) null);
+        s1InOtherNamespace.getMetadata().setNamespace("ns2");
+        s1InOtherNamespace.getData().put("username", "bnMyVXNlcm5hbWU=");
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        s2.getMetadata().setNamespace("ns3");
+
+        server.expect().withPath("/api/v1/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1, s1InOtherNamespace, s2)
+                        .build())
+                .once();
+        server.expect().withPath("/api/v1/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+
+        try {
+            System.setProperty(KubernetesCredentialProvider.CLUSTER_SCOPED, "true");
+            System.setProperty(KubernetesCredentialProvider.NAMESPACES, "ns2,ns1");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+
+            List<UsernamePasswordCredentials> credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+            assertThat("the secret from the namespace configured first wins, and ns3 is filtered out", credentials,
+                    contains(allOf(hasProperty("id", is("s1")), hasProperty("username", is("ns2Username")))));
+            assertThat("both secrets are kept", provider.getCredentialCountsByNamespace(), is(Map.of("local/ns1", 1, "local/ns2", 1)));
+            assertRequestCount("/api/v1/secrets?labelSelector=jenkins.io%2Fcredentials-type", 1);
+        } finally {
+            System.clearProperty(KubernetesCredentialProvider.CLUSTER_SCOPED);
+            System.clearProperty(KubernetesCredentialProvider.NAMESPACES);
+        }
+    }
+
+    @Test
+    void startWatchingForSecretsInAdditionalCluster(@TempDir Path tempDir) throws Exception {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        Secret s1InRemoteCluster = createSecret("s1", (CredentialsScope) null);
+        s1InRemoteCluster.getMetadata().setNamespace("remote");
+        s1InRemoteCluster.getData().put("username", "cmVtb3RlVXNlcm5hbWU=");
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        s2.getMetadata().setNamespace("remote");
+
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1)
+                        .build())
+                .once();
+        server.expect().withPath("/api/v1/namespaces/remote/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1InRemoteCluster, s2)
+                        .build())
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+        server.expect().withPath("/api/v1/namespaces/remote/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+
+        // the mock server stands in for the additional cluster, reached through a kubeconfig with its own namespace
+        Path kubeconfig = tempDir.resolve("kubeconfig");
+        Files.write(kubeconfig, List.of(
+                "apiVersion: v1",
+                "kind: Config",
+                "clusters:",
+                "- name: remote",
+                "  cluster:",
+                "    server: " + client.getMasterUrl(),
+                "    insecure-skip-tls-verify: true",
+                "contexts:",
+                "- name: remote",
+                "  context:",
+                "    cluster: remote",
+                "    namespace: remote",
+                "    user: remote",
+                "current-context: remote",
+                "users:",
+                "- name: remote",
+                "  user:",
+                "    token: token"));
+        KubernetesClusterSource source = new KubernetesClusterSource("remote");
+        source.setKubeconfigPath(kubeconfig.toString());
+
+        KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider() {
+            @Override
+            List<KubernetesClusterSource> getClusterSources() {
+                return List.of(source);
+            }
+        };
+        provider.startWatchingForSecrets();
+
+        List<UsernamePasswordCredentials> credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+        assertThat("the additional cluster is started in the background", credentials,
+                containsInAnyOrder(hasProperty("id", is("s1"))));
+
+        ArgumentCaptor<Runnable> startTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(jenkinsTimer).submit(startTask.capture());
+        startTask.getValue().run();
+
+        credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+        assertThat("s1 from the local cluster takes precedence over s1 from the additional cluster", credentials,
+                containsInAnyOrder(
+                        allOf(hasProperty("id", is("s1")), hasProperty("username", is("myUsername"))),
+                        hasProperty("id", is("s2"))));
+        provider.stopWatchingForSecrets();
+    }
+
+    @Test
+    void startWatchingForSecretsMetadataOnly() throws Exception {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        s1.getMetadata().setResourceVersion("10");
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        s2.getMetadata().setResourceVersion("11");
+        Secret s3 = createSecret("s3", (CredentialsScope) null);
+        s3.getMetadata().setResourceVersion("12");
+        Secret s3Modified = createSecret("s3", (CredentialsScope) null);
+        s3Modified.getMetadata().setResourceVersion("13");
+
+        // there is nothing to reuse initially, so all the secrets are listed
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1, s2, s3)
+                        .build())
+                .once();
+        // after a reconnect only the metadata is listed, and only s3 has changed
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, partialObjectMetadataList("2", s1, s2, s3Modified))
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets/s1").andReturn(200, s1).always();
+        server.expect().withPath("/api/v1/namespaces/test/secrets/s2").andReturn(200, s2).always();
+        server.expect().withPath("/api/v1/namespaces/test/secrets/s3").andReturn(200, s3Modified).always();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=2&watch=true")
+                .andReturn(200, null).always();
+
+        try {
+            System.setProperty(KubernetesCredentialProvider.METADATA_ONLY, "true");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+            provider.getWatcher("test").onClose(new WatcherException("test exception"));
+
+            List<UsernamePasswordCredentials> credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+            assertThat(credentials, containsInAnyOrder(hasProperty("id", is("s1")), hasProperty("id", is("s2")), hasProperty("id", is("s3"))));
+            List<RecordedRequest> requests = getRequests();
+            assertEquals(0, requests.stream().filter(r -> r.getPath().equals("/api/v1/namespaces/test/secrets/s1")).count(), "unchanged s1 is not fetched");
+            assertEquals(0, requests.stream().filter(r -> r.getPath().equals("/api/v1/namespaces/test/secrets/s2")).count(), "unchanged s2 is not fetched");
+            assertEquals(1, requests.stream().filter(r -> r.getPath().equals("/api/v1/namespaces/test/secrets/s3")).count(), "modified s3 is fetched");
+        } finally {
+            System.clearProperty(KubernetesCredentialProvider.METADATA_ONLY);
+        }
+    }
+
+    @Test
+    void startWatchingForSecretsMetadataOnlyMostChanged() throws Exception {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        s1.getMetadata().setResourceVersion("10");
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        s2.getMetadata().setResourceVersion("11");
+        Secret s3 = createSecret("s3", (CredentialsScope) null);
+        s3.getMetadata().setResourceVersion("12");
+        Secret s3Modified = createSecret("s3", (CredentialsScope) null);
+        s3Modified.getMetadata().setResourceVersion("13");
+        s3Modified.getData().put("username", "cmVtb3RlVXNlcm5hbWU=");
+        Secret s4 = createSecret("s4", (CredentialsScope) null);
+        s4.getMetadata().setResourceVersion("14");
+
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1, s2, s3)
+                        .build())
+                .once();
+        // after a reconnect s2 has been deleted, s3 modified and s4 added, so most of the secrets have changed
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, partialObjectMetadataList("2", s1, s3Modified, s4))
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("2")
+                        .endMetadata()
+                        .addToItems(s1, s3Modified, s4)
+                        .build())
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=2&watch=true")
+                .andReturn(200, null).always();
+
+        try {
+            System.setProperty(KubernetesCredentialProvider.METADATA_ONLY, "true");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+            provider.getWatcher("test").onClose(new WatcherException("test exception"));
+
+            List<UsernamePasswordCredentials> credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+            assertThat("the changed and new secrets are not lost when everything is listed", credentials, containsInAnyOrder(
+                    hasProperty("id", is("s1")),
+                    allOf(hasProperty("id", is("s3")), hasProperty("username", is("remoteUsername"))),
+                    hasProperty("id", is("s4"))));
+            List<RecordedRequest> requests = getRequests();
+            assertEquals(0, requests.stream().filter(r -> r.getPath().startsWith("/api/v1/namespaces/test/secrets/")).count(), "no secret is fetched individually");
+        } finally {
+            System.clearProperty(KubernetesCredentialProvider.METADATA_ONLY);
+        }
+    }
+
+    @Test
+    void startWatchingForSecretsMetadataOnlyPagedFromWatchCache() throws Exception {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        s1.getMetadata().setResourceVersion("10");
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        s2.getMetadata().setResourceVersion("11");
+        Secret s3 = createSecret("s3", (CredentialsScope) null);
+        s3.getMetadata().setResourceVersion("12");
+        Secret s3Modified = createSecret("s3", (CredentialsScope) null);
+        s3Modified.getMetadata().setResourceVersion("13");
+
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=0")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1, s2, s3)
+                        .build())
+                .once();
+        // the metadata is relisted from the watch cache, a page at a time
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type&limit=2&resourceVersion=1&resourceVersionMatch=NotOlderThan")
+                .andReturn(200, partialObjectMetadataList("2", "next", s1, s2))
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type&limit=2&continue=next")
+                .andReturn(200, partialObjectMetadataList("2", (String) null, s3Modified))
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets/s3").andReturn(200, s3Modified).always();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=2&watch=true")
+                .andReturn(200, null).always();
+
+        try {
+            System.setProperty(KubernetesCredentialProvider.METADATA_ONLY, "true");
+            System.setProperty(KubernetesCredentialProvider.LIST_FROM_WATCH_CACHE, "true");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+            System.setProperty(KubernetesCredentialProvider.LIST_PAGE_SIZE, "2");
+            provider.getWatcher("test").onClose(new WatcherException("test exception"));
+
+            List<UsernamePasswordCredentials> credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+            assertThat(credentials, containsInAnyOrder(hasProperty("id", is("s1")), hasProperty("id", is("s2")), hasProperty("id", is("s3"))));
+            List<RecordedRequest> requests = getRequests();
+            assertEquals(0, requests.stream().filter(r -> r.getPath().equals("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")).count(), "no quorum read");
+            assertEquals(1, requests.stream().filter(r -> r.getPath().endsWith("&continue=next")).count(), "the second page is listed");
+            assertEquals(1, requests.stream().filter(r -> r.getPath().equals("/api/v1/namespaces/test/secrets/s3")).count(), "modified s3 is fetched");
+        } finally {
+            System.clearProperty(KubernetesCredentialProvider.METADATA_ONLY);
+            System.clearProperty(KubernetesCredentialProvider.LIST_FROM_WATCH_CACHE);
+            System.clearProperty(KubernetesCredentialProvider.LIST_PAGE_SIZE);
+        }
+    }
+
+    private static String partialObjectMetadataList(String resourceVersion, Secret... secrets) {
+        return partialObjectMetadataList(resourceVersion, (String) null, secrets);
+    }
+
+    private static String partialObjectMetadataList(String resourceVersion, String continueToken, Secret... secrets) {
+        StringBuilder items = new StringBuilder();
+        for (Secret secret : secrets) {
+            if (items.length() > 0) {
+                items.append(',');
+            }
+            items.append("{\"apiVersion\":\"meta.k8s.io/v1\",\"kind\":\"PartialObjectMetadata\",\"metadata\":{")
+                    .append("\"name\":\"").append(secret.getMetadata().getName()).append("\",")
+                    .append("\"namespace\":\"").append(secret.getMetadata().getNamespace()).append("\",")
+                    .append("\"resourceVersion\":\"").append(secret.getMetadata().getResourceVersion()).append("\"}}");
+        }
+        String metadata = "\"resourceVersion\":\"" + resourceVersion + "\"" + (continueToken == null ? "" : ",\"continue\":\"" + continueToken + "\"");
+        return "{\"apiVersion\":\"meta.k8s.io/v1\",\"kind\":\"PartialObjectMetadataList\",\"metadata\":{" + metadata + "},\"items\":[" + items + "]}";
+    }
+
     @Issue("SECURITY-3022")
     @Test
     void credentialScope() {
@@ -269,6 +686,40 @@ class KubernetesCredentialsProviderTest {
         assertEquals(0, getInitAdministrativeMonitorCount(), "expect administrative error to be cleared");
     }
 
+    @Test
+    void retryLocalClusterOnlyWhenClientCanNotBeCreated() throws Exception {
+        defaultMockKubernetesResponses();
+        KubernetesClusterSource source = new KubernetesClusterSource("remote");
+        KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider() {
+            private boolean failed;
+
+            @Override
+            KubernetesClient getKubernetesClient() {
+                if (!failed) {
+                    failed = true;
+                    throw new KubernetesClientException("test exception");
+                }
+                return super.getKubernetesClient();
+            }
+
+            @Override
+            List<KubernetesClusterSource> getClusterSources() {
+                return List.of(source);
+            }
+        };
+        provider.startWatchingForSecrets();
+        assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type", 0);
+
+        ArgumentCaptor<Runnable> reconnectTask = ArgumentCaptor.forClass(Runnable.class);
+        verify(jenkinsTimer).schedule(reconnectTask.capture(), eq(5L), eq(TimeUnit.MINUTES));
+        reconnectTask.getValue().run();
+
+        assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type", 1);
+        // the additional cluster was only started once, the retry did not restart it
+        verify(jenkinsTimer, times(1)).submit(any(Runnable.class));
+        provider.stopWatchingForSecrets();
+    }
+
     private long getInitAdministrativeMonitorCount() {
         return AdministrativeMonitor.all().stream()
                 .filter(am -> am.id.equals(MockedKubernetesCredentialProvider.class.getName() + ".initialize"))
@@ -280,18 +731,41 @@ class KubernetesCredentialsProviderTest {
         defaultMockKubernetesResponses();
         KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
         provider.startWatchingForSecrets();
-        provider.onClose(new WatcherException("test exception"));
+        provider.getWatcher("test").onClose(new WatcherException("test exception"));
         // expect 2 requests to list
         assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type", 2);
     }
 
+    @Test
+    void throttledRelistIsScheduled() throws Exception {
+        defaultMockKubernetesResponses();
+        try {
+            System.setProperty(ListRateLimiter.LIST_QPS, "0.001");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+            assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type", 1);
+
+            // the watch closing does not wait for the limiter
+            provider.getWatcher("test").onClose(new WatcherException("test exception"));
+            assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type", 0);
+
+            ArgumentCaptor<Runnable> listTask = ArgumentCaptor.forClass(Runnable.class);
+            verify(jenkinsTimer).schedule(listTask.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+            listTask.getValue().run();
+            assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type", 1);
+            provider.stopWatchingForSecrets();
+        } finally {
+            System.clearProperty(ListRateLimiter.LIST_QPS);
+        }
+    }
+
     @Test
     void noRestartWatchOnCloseNormal() throws Exception {
         defaultMockKubernetesResponses();
         KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
         provider.startWatchingForSecrets();
 
-        provider.onClose(null);
+        provider.getWatcher("test").onClose(null);
         // expect 1 requests to list
         assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type", 1);
     }
@@ -311,6 +785,273 @@ class KubernetesCredentialsProviderTest {
         }
     }
 
+    @Test
+    void startWatchingForConvertibleTypesOnly() throws InterruptedException {
+        try {
+            System.setProperty(KubernetesCredentialProvider.CONVERTIBLE_TYPES_ONLY, "true");
+            // only the usernamePassword converter is registered
+            mockKubernetesResponses("jenkins.io%2Fcredentials-type%2Cjenkins.io%2Fcredentials-type%20in%20%28usernamePassword%29");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+
+            assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type%2Cjenkins.io%2Fcredentials-type%20in%20%28usernamePassword%29", 1);
+        } finally {
+            System.clearProperty(KubernetesCredentialProvider.CONVERTIBLE_TYPES_ONLY);
+        }
+    }
+
+    @Test
+    void startWatchingWithWatchList() throws InterruptedException {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        Secret bookmark = new SecretBuilder()
+                .withNewMetadata()
+                .withResourceVersion("5")
+                .addToAnnotations(KubernetesCredentialProvider.INITIAL_EVENTS_END_ANNOTATION, "true")
+                .endMetadata()
+                .build();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersionMatch=NotOlderThan&sendInitialEvents=true&watch=true")
+                .andUpgradeToWebSocket()
+                .open()
+                    .andEmit(new WatchEvent(s1, "ADDED"))
+                    .andEmit(new WatchEvent(s2, "ADDED"))
+                    .waitFor(EVENT_WAIT_PERIOD_MS)
+                    .andEmit(new WatchEvent(bookmark, "BOOKMARK"))
+                .done()
+                .once();
+
+        try {
+            System.setProperty(KubernetesCredentialProvider.WATCH_LIST, "true");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+
+            List<UsernamePasswordCredentials> credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+            for (int i = 0; i < 100 && credentials.isEmpty(); i++) {
+                // the initial events are received asynchronously, and only become visible together
+                Thread.sleep(EVENT_WAIT_PERIOD_MS);
+                credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+            }
+            assertThat(credentials, containsInAnyOrder(hasProperty("id", is("s1")), hasProperty("id", is("s2"))));
+            assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type", 0);
+        } finally {
+            System.clearProperty(KubernetesCredentialProvider.WATCH_LIST);
+        }
+    }
+
+    @Test
+    void startWatchingWithWatchListUnsupported() throws InterruptedException {
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersionMatch=NotOlderThan&sendInitialEvents=true&watch=true")
+                .andReturn(422, new StatusBuilder()
+                        .withCode(422)
+                        .withReason("Invalid")
+                        .withMessage("sendInitialEvents is forbidden for watch unless the WatchList feature gate is enabled")
+                        .build())
+                .always();
+        defaultMockKubernetesResponses();
+
+        try {
+            System.setProperty(KubernetesCredentialProvider.WATCH_LIST, "true");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+            provider.getWatcher("test").onClose(new WatcherException("test exception"));
+
+            // streaming is only attempted until the API server is found not to support it
+            List<RecordedRequest> requests = getRequests();
+            assertEquals(1, requests.stream().filter(r -> r.getPath().contains("sendInitialEvents=true")).count(), "streaming attempted once");
+            assertEquals(2, requests.stream().filter(r -> r.getPath().equals("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")).count(), "listed instead");
+            assertEquals(0, getInitAdministrativeMonitorCount(), "falling back is not an error");
+        } finally {
+            System.clearProperty(KubernetesCredentialProvider.WATCH_LIST);
+        }
+    }
+
+    @Test
+    void listFromWatchCache() throws InterruptedException {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=0")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1)
+                        .build())
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&resourceVersionMatch=NotOlderThan")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1)
+                        .build())
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+
+        try {
+            System.setProperty(KubernetesCredentialProvider.LIST_FROM_WATCH_CACHE, "true");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+            // relisting must not go back before the resourceVersion already seen
+            provider.getWatcher("test").onClose(new WatcherException("test exception"));
+
+            List<UsernamePasswordCredentials> credentials = provider.getCredentials(UsernamePasswordCredentials.class, (ItemGroup) null, ACL.SYSTEM);
+            assertThat(credentials, containsInAnyOrder(hasProperty("id", is("s1"))));
+            List<RecordedRequest> requests = getRequests();
+            assertEquals(0, requests.stream().filter(r -> r.getPath().equals("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")).count(), "no quorum read");
+            assertEquals(1, requests.stream().filter(r -> r.getPath().endsWith("resourceVersionMatch=NotOlderThan")).count(), "relisted from the cache");
+        } finally {
+            System.clearProperty(KubernetesCredentialProvider.LIST_FROM_WATCH_CACHE);
+        }
+    }
+
+    @Test
+    void metrics() {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        s2.getData().put("password", "this_is_invalid_base64!");
+        Secret s3 = createSecret("s3", (CredentialsScope) null);
+        s3.getData().put("password", "this_is_invalid_base64!");
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1, s2)
+                        .build())
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+        InMemoryProviderMetrics metrics = new InMemoryProviderMetrics();
+        ExtensionList<KubernetesCredentialProviderMetrics> allMetrics = ExtensionList.create((Jenkins) null, KubernetesCredentialProviderMetrics.class);
+        allMetrics.add(metrics);
+        extensionList.when(() -> ExtensionList.lookup(KubernetesCredentialProviderMetrics.class)).thenReturn(allMetrics);
+
+        try {
+            System.setProperty(InMemoryProviderMetrics.METRICS, "true");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+            provider.getWatcher("test").eventReceived(Watcher.Action.DELETED, s1);
+            // a secret converted on its own is counted like those of a batch, whether or not it could be converted
+            provider.getWatcher("test").eventReceived(Watcher.Action.ADDED, s3);
+
+            assertThat(metrics.getConversionCounts(), is(Map.of("usernamePassword", 3L)));
+            assertThat(metrics.getConversionFailureCounts(), is(Map.of("usernamePassword", 2L)));
+            assertThat(metrics.getConversionFailureCountsByNamespace(), is(Map.of("test", 2L)));
+            assertThat(metrics.getEventCount(Watcher.Action.DELETED), is(1L));
+            assertThat(metrics.getLastSyncTimes().keySet(), containsInAnyOrder("local/test"));
+            assertThat(provider.getCredentialCount(), is(0));
+        } finally {
+            System.clearProperty(InMemoryProviderMetrics.METRICS);
+        }
+    }
+
+    @Test
+    void management() throws InterruptedException {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        s2.getData().put("password", "this_is_invalid_base64!");
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1, s2)
+                        .build())
+                .always();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+
+        KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+        provider.startWatchingForSecrets();
+        KubernetesCredentialProviderManagement management = new KubernetesCredentialProviderManagement(provider);
+
+        assertThat(management.getCredentialCountsByType(), is(Map.of("usernamePassword", 1)));
+        assertThat(management.getCredentialCountsByNamespace(), is(Map.of("local/test", 1)));
+        assertTrue(management.getEstimatedCredentialBytes() > 0, "estimated bytes");
+        assertThat(management.getWatchStates().keySet(), containsInAnyOrder("local/test"));
+        assertThat(management.getResourceVersions(), is(Map.of("local/test", "1")));
+        assertThat(management.getLastListDurationsMillis().keySet(), containsInAnyOrder("local/test"));
+        assertThat(management.dumpConversionFailures(), contains(startsWith("local/test/s2 (usernamePassword, resourceVersion ")));
+
+        assertThat(management.relist(), is("Relisted 1 namespace(s)"));
+        assertRequestCount("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type", 2);
+        assertThat(management.getCredentialCountsByType(), is(Map.of("usernamePassword", 1)));
+    }
+
+    @Test
+    void startupTimings() {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        server.expect().withPath("/api/v1/namespaces/test/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                .andReturn(200, new SecretListBuilder()
+                        .withNewMetadata()
+                        .withResourceVersion("1")
+                        .endMetadata()
+                        .addToItems(s1, s2)
+                        .build())
+                .once();
+        server.expect().withPath("/api/v1/namespaces/test/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                .andReturn(200, null).always();
+
+        KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+        provider.startWatchingForSecrets();
+
+        List<StartupTimings> startups = provider.getStartupTimings();
+        assertEquals(1, startups.size(), "startups");
+        StartupTimings startup = startups.get(0);
+        assertEquals(KubernetesCredentialProvider.LOCAL_CLUSTER, startup.getCluster());
+        assertEquals(1, startup.getNamespaces(), "namespaces");
+        assertEquals(2, startup.getSecrets(), "secrets");
+        assertTrue(startup.getSecretBytes() > 0, "secret bytes");
+        assertTrue(startup.getDurationMillis() >= startup.getPhaseMillis(StartupTimings.Phase.LIST), "total includes the list");
+    }
+
+    @Test
+    void startupTimingsIncludeThrottledLists() {
+        Secret s1 = createSecret("s1", (CredentialsScope) null);
+        s1.getMetadata().setNamespace("ns1");
+        Secret s2 = createSecret("s2", (CredentialsScope) null);
+        s2.getMetadata().setNamespace("ns2");
+        for (Secret s : List.of(s1, s2)) {
+            String namespace = s.getMetadata().getNamespace();
+            server.expect().withPath("/api/v1/namespaces/" + namespace + "/secrets?labelSelector=jenkins.io%2Fcredentials-type")
+                    .andReturn(200, new SecretListBuilder()
+                            .withNewMetadata()
+                            .withResourceVersion("1")
+                            .endMetadata()
+                            .addToItems(s)
+                            .build())
+                    .once();
+            server.expect().withPath("/api/v1/namespaces/" + namespace + "/secrets?allowWatchBookmarks=true&labelSelector=jenkins.io%2Fcredentials-type&resourceVersion=1&watch=true")
+                    .andReturn(200, null).always();
+        }
+
+        try {
+            System.setProperty(KubernetesCredentialProvider.NAMESPACES, "ns1,ns2");
+            // a burst of a single LIST, so ns2 is listed later
+            System.setProperty(ListRateLimiter.LIST_QPS, "0.001");
+            KubernetesCredentialProvider provider = new MockedKubernetesCredentialProvider();
+            provider.startWatchingForSecrets();
+
+            StartupTimings startup = provider.getStartupTimings().get(0);
+            assertEquals(1, startup.getNamespaces(), "namespaces listed so far");
+            assertEquals(-1, startup.getDurationMillis(), "in progress until ns2 is listed");
+
+            ArgumentCaptor<Runnable> listTask = ArgumentCaptor.forClass(Runnable.class);
+            verify(jenkinsTimer).schedule(listTask.capture(), anyLong(), eq(TimeUnit.NANOSECONDS));
+            listTask.getValue().run();
+
+            assertEquals(1, provider.getStartupTimings().size(), "startups");
+            assertEquals(2, startup.getNamespaces(), "namespaces");
+            assertEquals(2, startup.getSecrets(), "secrets");
+            assertTrue(startup.getDurationMillis() >= 0, "finished");
+            provider.stopWatchingForSecrets();
+        } finally {
+            System.clearProperty(KubernetesCredentialProvider.NAMESPACES);
+            System.clearProperty(ListRateLimiter.LIST_QPS);
+        }
+    }
+
     @Test
     void startWatchingWithCustomLabelException() {
         try {
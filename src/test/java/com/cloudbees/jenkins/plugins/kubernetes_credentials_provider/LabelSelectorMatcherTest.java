@@ -0,0 +1,165 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import io.fabric8.kubernetes.api.model.LabelSelectorBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LabelSelectorMatcherTest {
+
+    private static final String[] KEYS = {"env", "team", "mycompany.com/partition"};
+    private static final String[] VALUES = {"dev", "qa", "prod"};
+
+    @Test
+    void emptySelectorMatchesEverything() throws LabelSelectorParseException {
+        assertThat(LabelSelectorMatcher.compile(null), sameInstance(LabelSelectorMatcher.ANY));
+        LabelSelectorMatcher matcher = LabelSelectorMatcher.compile(LabelSelectorExpressions.parse(""));
+        assertThat(matcher.matches(null), is(true));
+        assertThat(matcher.matches(Map.of("env", "dev")), is(true));
+    }
+
+    @Test
+    void equality() throws LabelSelectorParseException {
+        LabelSelectorMatcher matcher = compile("env=dev");
+        assertThat(matcher.matches(Map.of("env", "dev")), is(true));
+        assertThat(matcher.matches(Map.of("env", "qa")), is(false));
+        assertThat(matcher.matches(Map.of()), is(false));
+    }
+
+    @Test
+    void inequality() throws LabelSelectorParseException {
+        LabelSelectorMatcher matcher = compile("env!=dev");
+        assertThat(matcher.matches(Map.of("env", "dev")), is(false));
+        assertThat(matcher.matches(Map.of("env", "qa")), is(true));
+        assertThat("a missing label is not equal to anything", matcher.matches(Map.of()), is(true));
+    }
+
+    @Test
+    void in() throws LabelSelectorParseException {
+        LabelSelectorMatcher matcher = compile("env in (dev, qa)");
+        assertThat(matcher.matches(Map.of("env", "dev")), is(true));
+        assertThat(matcher.matches(Map.of("env", "qa")), is(true));
+        assertThat(matcher.matches(Map.of("env", "prod")), is(false));
+        assertThat(matcher.matches(Map.of()), is(false));
+    }
+
+    @Test
+    void notIn() throws LabelSelectorParseException {
+        LabelSelectorMatcher matcher = compile("env notin (dev, qa)");
+        assertThat(matcher.matches(Map.of("env", "dev")), is(false));
+        assertThat(matcher.matches(Map.of("env", "prod")), is(true));
+        assertThat(matcher.matches(Map.of()), is(true));
+    }
+
+    @Test
+    void existence() throws LabelSelectorParseException {
+        LabelSelectorMatcher exists = compile("env");
+        assertThat(exists.matches(Map.of("env", "")), is(true));
+        assertThat(exists.matches(Map.of("team", "a")), is(false));
+
+        LabelSelectorMatcher doesNotExist = compile("!env");
+        assertThat(doesNotExist.matches(Map.of("env", "")), is(false));
+        assertThat(doesNotExist.matches(Map.of("team", "a")), is(true));
+        assertThat(doesNotExist.matches(null), is(true));
+    }
+
+    @Test
+    void allRequirementsMustMatch() throws LabelSelectorParseException {
+        LabelSelectorMatcher matcher = compile("mycompany.com/partition in (customerA, customerB),environment!=qa,!foo,bar");
+        assertThat(matcher.matches(Map.of("mycompany.com/partition", "customerA", "bar", "")), is(true));
+        assertThat(matcher.matches(Map.of("mycompany.com/partition", "customerA", "bar", "", "foo", "")), is(false));
+        assertThat(matcher.matches(Map.of("mycompany.com/partition", "customerA", "bar", "", "environment", "qa")), is(false));
+        assertThat(matcher.matches(Map.of("mycompany.com/partition", "customerA")), is(false));
+    }
+
+    @Test
+    void unknownOperator() {
+        assertThrows(IllegalArgumentException.class, () -> LabelSelectorMatcher.compile(new LabelSelectorBuilder()
+                .addNewMatchExpression().withKey("env").withOperator("Gt").withValues("1").endMatchExpression()
+                .build()));
+    }
+
+    @Test
+    void compileIsCached() throws LabelSelectorParseException {
+        LabelSelectorExpressions.Compiled compiled = LabelSelectorExpressions.compile("env in (dev, qa)");
+        assertThat(LabelSelectorExpressions.compile("env in (dev, qa)"), sameInstance(compiled));
+        assertThat(LabelSelectorExpressions.compile("env notin (dev, qa)").getMatcher().matches(Map.of("env", "dev")), is(false));
+    }
+
+    /**
+     * Generates random selectors along with a reference implementation of their semantics and checks the compiled
+     * matcher agrees with the reference for random sets of labels.
+     */
+    @Test
+    void fuzz() throws LabelSelectorParseException {
+        Random random = new Random(0x5EC2E75L);
+        for (int i = 0; i < 2_000; i++) {
+            // one expression per key, repeated equality requirements on a key collapse into a single matchLabels entry
+            List<String> keys = new ArrayList<>(List.of(KEYS));
+            Collections.shuffle(keys, random);
+            int expressions = 1 + random.nextInt(KEYS.length);
+            List<String> selector = new ArrayList<>();
+            Predicate<Map<String, String>> expected = labels -> true;
+            for (int e = 0; e < expressions; e++) {
+                String key = keys.get(e);
+                String v1 = VALUES[random.nextInt(VALUES.length)];
+                String v2 = VALUES[random.nextInt(VALUES.length)];
+                Predicate<Map<String, String>> requirement;
+                switch (random.nextInt(6)) {
+                    case 0:
+                        selector.add(key + "=" + v1);
+                        requirement = labels -> v1.equals(labels.get(key));
+                        break;
+                    case 1:
+                        selector.add(key + (random.nextBoolean() ? " != " : "!=") + v1);
+                        requirement = labels -> !v1.equals(labels.get(key));
+                        break;
+                    case 2:
+                        selector.add(key + " in (" + v1 + ", " + v2 + ")");
+                        requirement = labels -> v1.equals(labels.get(key)) || v2.equals(labels.get(key));
+                        break;
+                    case 3:
+                        selector.add(key + " notin (" + v1 + "," + v2 + ")");
+                        requirement = labels -> !v1.equals(labels.get(key)) && !v2.equals(labels.get(key));
+                        break;
+                    case 4:
+                        selector.add(key);
+                        requirement = labels -> labels.containsKey(key);
+                        break;
+                    default:
+                        selector.add("!" + key);
+                        requirement = labels -> !labels.containsKey(key);
+                        break;
+                }
+                expected = expected.and(requirement);
+            }
+            String expression = String.join(",", selector);
+            LabelSelectorMatcher matcher = compile(expression);
+            for (int l = 0; l < 10; l++) {
+                Map<String, String> labels = new HashMap<>();
+                for (String key : KEYS) {
+                    if (random.nextBoolean()) {
+                        labels.put(key, VALUES[random.nextInt(VALUES.length)]);
+                    }
+                }
+                assertEquals(expected.test(labels), matcher.matches(labels), expression + " against " + labels);
+            }
+        }
+    }
+
+    private static LabelSelectorMatcher compile(String expression) throws LabelSelectorParseException {
+        return LabelSelectorMatcher.compile(LabelSelectorExpressions.parse(expression));
+    }
+}
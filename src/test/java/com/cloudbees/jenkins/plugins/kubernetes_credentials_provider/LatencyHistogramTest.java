@@ -0,0 +1,38 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+class LatencyHistogramTest {
+
+    @Test
+    void empty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.getCount(), is(0L));
+        assertThat(histogram.getPercentileNanos(99), is(0L));
+    }
+
+    @Test
+    void percentilesWithinAFactorOfTwo() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        assertThat(histogram.getCount(), is(100L));
+        assertThat(histogram.getMaxNanos(), is(TimeUnit.MILLISECONDS.toNanos(50)));
+        long p50 = histogram.getPercentileNanos(50);
+        assertThat(p50, allOf(greaterThanOrEqualTo(TimeUnit.MICROSECONDS.toNanos(100)), lessThanOrEqualTo(TimeUnit.MICROSECONDS.toNanos(200))));
+        long p99 = histogram.getPercentileNanos(99);
+        assertThat(p99, allOf(greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(25)), lessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50))));
+    }
+}
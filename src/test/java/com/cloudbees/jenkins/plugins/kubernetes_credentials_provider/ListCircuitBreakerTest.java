@@ -0,0 +1,55 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class ListCircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        ListCircuitBreaker breaker = new ListCircuitBreaker(2, 10, 25, TimeUnit.SECONDS, now::get);
+        assertThat(breaker.recordFailure(), is(false));
+        breaker.recordSuccess();
+        assertThat("failures must be consecutive", breaker.recordFailure(), is(false));
+        assertThat(breaker.recordFailure(), is(true));
+        assertThat(breaker.isOpen(), is(true));
+        assertThat(breaker.allowList(), is(false));
+        assertThat(breaker.getRemainingMillis(), is(10_000L));
+
+        // a single trial once the backoff has elapsed
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(breaker.allowList(), is(true));
+        assertThat(breaker.allowList(), is(false));
+
+        // a failed trial doubles the backoff, up to the maximum
+        assertThat(breaker.recordFailure(), is(true));
+        assertThat(breaker.getRemainingMillis(), is(20_000L));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        assertThat(breaker.allowList(), is(true));
+        breaker.recordFailure();
+        assertThat(breaker.getRemainingMillis(), is(25_000L));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(25));
+        assertThat(breaker.allowList(), is(true));
+        breaker.recordSuccess();
+        assertThat(breaker.isOpen(), is(false));
+        assertThat(breaker.allowList(), is(true));
+        assertThat(breaker.getOpenCount(), is(1L));
+    }
+
+    @Test
+    void disabled() {
+        ListCircuitBreaker breaker = new ListCircuitBreaker(0, 10, 25, TimeUnit.SECONDS, now::get);
+        for (int i = 0; i < 10; i++) {
+            assertThat(breaker.recordFailure(), is(false));
+        }
+        assertThat(breaker.allowList(), is(true));
+    }
+}
@@ -0,0 +1,42 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class ListRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    @Test
+    void unlimited() {
+        ListRateLimiter limiter = new ListRateLimiter(0, 0, now::get);
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.reserve(), is(0L));
+        }
+        assertThat(limiter.getThrottledCount(), is(0L));
+    }
+
+    @Test
+    void burstThenRate() {
+        ListRateLimiter limiter = new ListRateLimiter(2, 3, now::get);
+        assertThat(limiter.reserve(), is(0L));
+        assertThat(limiter.reserve(), is(0L));
+        assertThat(limiter.reserve(), is(0L));
+        assertThat("burst exhausted", limiter.reserve(), is(TimeUnit.MILLISECONDS.toNanos(500)));
+        assertThat(limiter.reserve(), is(TimeUnit.MILLISECONDS.toNanos(1000)));
+        assertThat(limiter.getThrottledCount(), is(2L));
+        assertThat(limiter.getThrottledMillis(), is(1500L));
+
+        // tokens are saved up again while idle, up to the burst size
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertThat(limiter.reserve(), is(0L));
+        assertThat(limiter.reserve(), is(0L));
+        assertThat(limiter.reserve(), is(0L));
+        assertThat(limiter.reserve(), is(TimeUnit.MILLISECONDS.toNanos(500)));
+    }
+}
@@ -0,0 +1,69 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.time.Instant;
+import java.util.Map;
+
+import io.fabric8.kubernetes.api.model.ManagedFieldsEntryBuilder;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class PropagationLagMonitorTest {
+
+    @AfterEach
+    void clearThreshold() {
+        System.clearProperty(PropagationLagMonitor.THRESHOLD_SECONDS);
+    }
+
+    @Test
+    void updatedAtFromManagedFields() {
+        Secret secret = new SecretBuilder()
+                .withNewMetadata()
+                .withName("s1")
+                .addToManagedFields(new ManagedFieldsEntryBuilder().withManager("kubectl").withTime("2024-05-01T10:00:00Z").build())
+                .addToManagedFields(new ManagedFieldsEntryBuilder().withManager("rotator").withTime("2024-05-01T12:00:00Z").build())
+                .endMetadata()
+                .build();
+        assertThat(PropagationLagMonitor.getUpdatedAt(secret), is(Instant.parse("2024-05-01T12:00:00Z").toEpochMilli()));
+
+        secret.getMetadata().setAnnotations(Map.of(PropagationLagMonitor.UPDATED_AT_ANNOTATION, "2024-05-01T12:00:01.250Z"));
+        assertThat("the annotation is more precise", PropagationLagMonitor.getUpdatedAt(secret), is(Instant.parse("2024-05-01T12:00:01.250Z").toEpochMilli()));
+
+        secret.getMetadata().setAnnotations(Map.of(PropagationLagMonitor.UPDATED_AT_ANNOTATION, "yesterday"));
+        assertThat("malformed annotations are ignored", PropagationLagMonitor.getUpdatedAt(secret), is(Instant.parse("2024-05-01T12:00:00Z").toEpochMilli()));
+
+        assertThat(PropagationLagMonitor.getUpdatedAt(new SecretBuilder().withNewMetadata().withName("s2").endMetadata().build()), nullValue());
+    }
+
+    @Test
+    void activatedAboveThreshold() {
+        System.setProperty(PropagationLagMonitor.THRESHOLD_SECONDS, "10");
+        PropagationLagMonitor monitor = new PropagationLagMonitor();
+        assertThat(monitor.isActivated(), is(false));
+        for (int i = 0; i < 99; i++) {
+            monitor.record(1_000);
+        }
+        monitor.record(-500);
+        assertThat(monitor.getPercentileMillis(50), is(1_000L));
+        assertThat("clock skew is recorded as no lag", monitor.getPercentileMillis(0), is(0L));
+        assertThat(monitor.isActivated(), is(false));
+
+        for (int i = 0; i < 10; i++) {
+            monitor.record(30_000);
+        }
+        assertThat(monitor.getPercentileMillis(99), is(30_000L));
+        assertThat(monitor.isActivated(), is(true));
+
+        // only the recent updates count
+        for (int i = 0; i < PropagationLagMonitor.WINDOW; i++) {
+            monitor.record(1_000);
+        }
+        assertThat(monitor.getSampleCount(), is(PropagationLagMonitor.WINDOW));
+        assertThat(monitor.isActivated(), is(false));
+    }
+}
@@ -0,0 +1,35 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.sameInstance;
+
+class ProviderTracingTest {
+
+    @AfterEach
+    void clearTracing() {
+        System.clearProperty(ProviderTracing.TRACING);
+    }
+
+    @Test
+    void noopWithoutOpenTelemetry() throws Exception {
+        try (URLClassLoader empty = new URLClassLoader(new URL[0], null)) {
+            ProviderTracing tracing = ProviderTracing.create(empty);
+            assertThat(tracing, sameInstance(ProviderTracing.NOOP));
+            try (ProviderTracing.Span span = tracing.start("test")) {
+                assertThat(span.attribute(ProviderTracing.NAMESPACE, "test").attribute(ProviderTracing.SIZE, 1), sameInstance(ProviderTracing.Span.NOOP));
+            }
+        }
+    }
+
+    @Test
+    void disabled() {
+        System.setProperty(ProviderTracing.TRACING, "false");
+        assertThat(ProviderTracing.create(getClass().getClassLoader()), sameInstance(ProviderTracing.NOOP));
+    }
+}
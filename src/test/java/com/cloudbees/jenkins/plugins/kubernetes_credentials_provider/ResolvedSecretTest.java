@@ -0,0 +1,101 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.text.StringContainsInOrder.stringContainsInOrder;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ResolvedSecretTest {
+
+    @Test
+    void getKeyNameWithNoAnnotations() {
+        String keyName = "theKey";
+        Secret s = new SecretBuilder().withNewMetadata().endMetadata().build();
+        s.getMetadata().setAnnotations(null);
+        assertThat(ResolvedSecret.of(s).getKeyName(keyName), sameInstance(keyName));
+    }
+
+    @Test
+    void getKeyNameWithMapping() {
+        Secret s = new SecretBuilder().withNewMetadata()
+                .addToAnnotations("jenkins.io/credentials-keybinding-username", "user")
+                .addToAnnotations("jenkins.io/credentials-keybinding-password", "pass")
+                .addToAnnotations("jenkins.io/credentials-description", "not a mapping")
+                .endMetadata().build();
+        ResolvedSecret resolved = ResolvedSecret.of(s);
+        assertThat(resolved.getKeyName("username"), is("user"));
+        assertThat(resolved.getKeyName("password"), is("pass"));
+        assertThat(resolved.getKeyName("description"), is("description"));
+    }
+
+    @Test
+    void getKeyNameWithIncompleteMapping() {
+        String keyName = "theKey";
+        Secret s = new SecretBuilder().withNewMetadata().addToAnnotations("jenkins.io/credentials-keybinding-" + keyName, "").endMetadata().build();
+        assertThat(ResolvedSecret.of(s).getKeyName(keyName), sameInstance(keyName));
+    }
+
+    @Test
+    void getCredentialItemScopesIsParsedOnce() throws CredentialsConvertionException {
+        Secret s = new SecretBuilder().withNewMetadata()
+                .addToAnnotations(SecretUtils.JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION, "['a', 'b/c']")
+                .endMetadata().build();
+        ResolvedSecret resolved = ResolvedSecret.of(s);
+        Set<String> itemScopes = resolved.getCredentialItemScopes();
+        assertThat(itemScopes, is(Set.of("a", "b/c")));
+        assertThat(resolved.getCredentialItemScopes(), sameInstance(itemScopes));
+    }
+
+    @Test
+    void getCredentialScope() throws CredentialsConvertionException {
+        Secret global = new SecretBuilder().withNewMetadata().endMetadata().build();
+        assertThat(ResolvedSecret.of(global).getCredentialScope(), is(CredentialsScope.GLOBAL));
+        Secret system = new SecretBuilder().withNewMetadata()
+                .addToLabels(SecretUtils.JENKINS_IO_CREDENTIALS_SCOPE_LABEL, "system")
+                .endMetadata().build();
+        assertThat(ResolvedSecret.of(system).getCredentialScope(), is(CredentialsScope.SYSTEM));
+        Secret combined = new SecretBuilder().withNewMetadata()
+                .addToLabels(SecretUtils.JENKINS_IO_CREDENTIALS_SCOPE_LABEL, "system")
+                .addToAnnotations(SecretUtils.JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION, "['a']")
+                .endMetadata().build();
+        CredentialsConvertionException cce = assertThrows(CredentialsConvertionException.class, () -> ResolvedSecret.of(combined).getCredentialScope());
+        assertThat(cce.getMessage(), stringContainsInOrder(SecretUtils.JENKINS_IO_CREDENTIALS_SCOPE_LABEL, "can not be combined"));
+    }
+
+    @Test
+    void getNonNullDataWithMappedEntry() throws CredentialsConvertionException {
+        Secret s = new SecretBuilder().withNewMetadata().addToAnnotations("jenkins.io/credentials-keybinding-a-key", "not-the-key").endMetadata()
+                .addToData("not-the-key", "some-data").build();
+        assertThat(ResolvedSecret.of(s).getNonNullData("a-key", "ignored"), is("some-data"));
+    }
+
+    @Test
+    void getNonNullDataWithNoMappedData() {
+        Secret s = new SecretBuilder().withNewMetadata().addToAnnotations("jenkins.io/credentials-keybinding-bogus", "wibble").endMetadata()
+                .addToData("bogus", "some-data").build();
+        CredentialsConvertionException cce = assertThrows(CredentialsConvertionException.class, () -> ResolvedSecret.of(s).getNonNullData("bogus", "oops"));
+        assertThat(cce.getMessage(), stringContainsInOrder("oops", "mapped to", "wibble"));
+    }
+
+    @Test
+    void getOptionalDataWithMissingKey() throws CredentialsConvertionException {
+        Secret s = new SecretBuilder().withNewMetadata().endMetadata().addToData("a-key-that-exists", "some-data").build();
+        assertThat(ResolvedSecret.of(s).getOptionalData("a-key-that-does-not-exist", "ignored"), is(Optional.empty()));
+    }
+
+    @Test
+    void getOptionalDataWithMappedEntry() throws CredentialsConvertionException {
+        Secret s = new SecretBuilder().withNewMetadata().addToAnnotations("jenkins.io/credentials-keybinding-a-key", "not-the-key").endMetadata()
+                .addToData("not-the-key", "some-data").build();
+        assertThat(ResolvedSecret.of(s).getOptionalData("a-key", "ignored"), is(Optional.of("some-data")));
+    }
+}
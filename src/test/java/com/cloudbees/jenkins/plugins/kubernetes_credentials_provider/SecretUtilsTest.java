@@ -33,6 +33,7 @@ import java.util.Base64;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
@@ -60,6 +61,25 @@ class SecretUtilsTest {
         assertThat(SecretUtils.base64DecodeToString("SGVsbG8sIFdvcmxk"), is("Hello, World"));
     }
 
+    @Test
+    void base64DecodeToStringWithMultiByteCharacters() {
+        String expected = "p\u00e4ssw\u00f6rd \u2603 \ud83d\udd11";
+        assertThat(SecretUtils.base64DecodeToString(Base64.getEncoder().encodeToString(expected.getBytes(StandardCharsets.UTF_8))), is(expected));
+    }
+
+    @Test
+    void base64DecodeToStringReusesBuffersSafely() {
+        // decode a long value followed by shorter ones so that stale data in reused buffers would show up
+        String large = "x".repeat(100_000);
+        String medium = "y".repeat(1_000);
+        assertThat(SecretUtils.base64DecodeToString(Base64.getEncoder().encodeToString(large.getBytes(StandardCharsets.UTF_8))), is(large));
+        assertThat(SecretUtils.base64DecodeToString(Base64.getEncoder().encodeToString(medium.getBytes(StandardCharsets.UTF_8))), is(medium));
+        assertThat(SecretUtils.base64DecodeToString("SGVsbG8sIFdvcmxk"), is("Hello, World"));
+        assertThat(SecretUtils.base64DecodeToString("this_is_invalid_base64!"), nullValue());
+        assertThat(SecretUtils.base64DecodeToString("SGk="), is("Hi"));
+        assertThat(SecretUtils.base64DecodeToString(""), is(""));
+    }
+
     @Test
     void base64DecodeWithInvalidInput() {
         // TODO check logging?
@@ -86,6 +106,40 @@ class SecretUtilsTest {
         assertThrows(CredentialsConvertionException.class, () -> SecretUtils.getCredentialScope(secret));
     }
 
+    @Test
+    void getCredentialItemScopesWithoutAnnotation() throws CredentialsConvertionException {
+        Secret s = new SecretBuilder().withNewMetadata().endMetadata().build();
+        assertThat(SecretUtils.getCredentialItemScopes(s), is(Collections.emptySet()));
+    }
+
+    @Test
+    void getCredentialItemScopesWithValidAnnotation() throws CredentialsConvertionException {
+        Set<String> expected = Set.of("thisIsJobA", "thisIsJobB", "thisIsJobC/thisIsJobD");
+        assertThat(SecretUtils.parseItemScopes("['thisIsJobA', 'thisIsJobB', 'thisIsJobC/thisIsJobD']"), is(expected));
+        assertThat(SecretUtils.parseItemScopes("['thisIsJobA','thisIsJobB' ,  'thisIsJobC/thisIsJobD']"), is(expected));
+        assertThat(SecretUtils.parseItemScopes(" [ \"thisIsJobA\", \"thisIsJobB\", \"thisIsJobC/thisIsJobD\" ] "), is(expected));
+        assertThat(SecretUtils.parseItemScopes("['it\\'s', \"a \\\"quoted\\\" \\u0066older\"]"), is(Set.of("it's", "a \"quoted\" folder")));
+        assertThat(SecretUtils.parseItemScopes("[]"), is(Collections.emptySet()));
+        assertThat(SecretUtils.parseItemScopes("[ ]"), is(Collections.emptySet()));
+
+        Secret s = new SecretBuilder().withNewMetadata()
+                .addToAnnotations(SecretUtils.JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION, "['a','b']")
+                .endMetadata().build();
+        assertThat(SecretUtils.getCredentialItemScopes(s), is(Set.of("a", "b")));
+    }
+
+    @Test
+    void getCredentialItemScopesWithMalformedAnnotation() {
+        for (String malformed : new String[] {"", "'a'", "[", "['a'", "['a',]", "['a' 'b']", "[a, b]", "['a'] trailing", "['']", "['unterminated]", "['\\u00zz']"}) {
+            Secret s = new SecretBuilder().withNewMetadata()
+                    .addToAnnotations(SecretUtils.JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION, malformed)
+                    .endMetadata().build();
+            CredentialsConvertionException cce = assertThrows(CredentialsConvertionException.class, () -> SecretUtils.parseCredentialItemScopes(s), malformed);
+            assertThat(cce.getMessage(), stringContainsInOrder(SecretUtils.JENKINS_IO_CREDENTIALS_ITEM_GROUP_ANNOTATION, "malformed"));
+            assertThat(malformed, SecretUtils.getCredentialItemScopes(s), is(Collections.emptySet()));
+        }
+    }
+
     @Test
     void getCredentialId() {
         final String testName = "a-test-name";
@@ -0,0 +1,90 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.cloudbees.plugins.credentials.common.IdCredentials;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+class ShardedCredentialStoreTest {
+
+    @Test
+    void sameIdInDifferentNamespaces() {
+        ShardedCredentialStore store = new ShardedCredentialStore();
+        KubernetesSourcedCredential a = credential("id");
+        KubernetesSourcedCredential b = credential("id");
+        store.put("ns1", "id", a);
+        store.put("ns2", "id", b);
+
+        assertThat(store.get("ns1", "id"), sameInstance(a));
+        assertThat(store.get("ns2", "id"), sameInstance(b));
+        assertThat(store.size(), is(2));
+
+        store.remove("ns1", "id");
+        assertThat(store.get("ns1", "id"), nullValue());
+        assertThat(store.hasCredentials("ns1"), is(false));
+        assertThat(store.hasCredentials("ns2"), is(true));
+    }
+
+    @Test
+    void replaceShard() {
+        ShardedCredentialStore store = new ShardedCredentialStore();
+        KubernetesSourcedCredential kept = credential("kept");
+        store.put("ns1", "stale", credential("stale"));
+        store.put("ns2", "kept", kept);
+
+        ShardedCredentialStore listed = new ShardedCredentialStore();
+        KubernetesSourcedCredential fresh = credential("fresh");
+        listed.put("ns1", "fresh", fresh);
+        store.replaceShard("ns1", listed);
+        assertThat(store.getCredentials(), containsInAnyOrder(kept, fresh));
+
+        store.replaceShard("ns1", new ShardedCredentialStore());
+        assertThat(store.getCredentials(), containsInAnyOrder(kept));
+        assertThat(store.getNamespaces(), containsInAnyOrder("ns2"));
+    }
+
+    @Test
+    void replaceAll() {
+        ShardedCredentialStore store = new ShardedCredentialStore();
+        store.put("ns1", "a", credential("a"));
+        store.put("ns2", "b", credential("b"));
+
+        ShardedCredentialStore listed = new ShardedCredentialStore();
+        KubernetesSourcedCredential c = credential("c");
+        listed.put("ns3", "c", c);
+        store.replaceAll(listed);
+        assertThat(store.getNamespaces(), containsInAnyOrder("ns3"));
+        assertThat(store.getCredentials(), containsInAnyOrder(c));
+    }
+
+    @Test
+    void shardsAreInOrderOfPrecedence() {
+        ShardedCredentialStore store = new ShardedCredentialStore();
+        KubernetesSourcedCredential a = credential("a");
+        KubernetesSourcedCredential b = credential("b");
+        KubernetesSourcedCredential c = credential("c");
+        KubernetesSourcedCredential d = credential("d");
+        store.put("ns3", "c", c);
+        store.put("ns1", "a", a);
+        store.setNamespaceOrder(List.of("ns2", "ns1"));
+        store.put("ns2", "b", b);
+        store.put("ns0", "d", d);
+
+        // the configured namespaces first, in the configured order, then the others by name
+        assertThat(store.getShards(), contains(Map.of("b", b), Map.of("a", a), Map.of("d", d), Map.of("c", c)));
+    }
+
+    private static KubernetesSourcedCredential credential(String id) {
+        return new KubernetesSourcedCredential(mock(IdCredentials.class, id), Collections.emptySet());
+    }
+}
@@ -0,0 +1,34 @@
+package com.cloudbees.jenkins.plugins.kubernetes_credentials_provider;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+class WatchEventLogTest {
+
+    @Test
+    void capacityIsRoundedUp() {
+        assertThat(new WatchEventLog(256).getCapacity(), is(256));
+        assertThat(new WatchEventLog(300).getCapacity(), is(512));
+    }
+
+    @Test
+    void keepsTheMostRecentEvents() {
+        WatchEventLog log = new WatchEventLog(4);
+        assertThat(log.getEntries(), empty());
+        for (int i = 1; i <= 6; i++) {
+            log.record("local", "test", "MODIFIED", "s" + i, String.valueOf(i), 1000);
+        }
+        log.record("local", "test", WatchEventLog.RECONNECT, null, "6", 0);
+
+        List<String> ids = log.getEntries().stream().map(e -> e.getAction() + ":" + e.getId()).collect(Collectors.toList());
+        assertThat(ids, contains("RECONNECT:null", "MODIFIED:s6", "MODIFIED:s5", "MODIFIED:s4"));
+        assertThat(log.getEntries().get(1).getDurationMicros(), is(1L));
+    }
+}